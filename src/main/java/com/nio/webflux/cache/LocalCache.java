@@ -0,0 +1,133 @@
+package com.nio.webflux.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Caffeine cache bounded by size and by time since write, published with the usual {@code cache.*} meter
+ * names. A {@code maxSize} of 0 disables it: every lookup is a miss and nothing is stored.
+ * <p>
+ * Values loaded from the source of truth should be stored with {@link #putIfUnchanged}, passing the
+ * {@link #generation()} read before loading: if a write or invalidation happened meanwhile the possibly
+ * stale value is dropped instead of cached. Only writes take the lock guarding the generation, lookups
+ * never block.
+ */
+public class LocalCache<K, V> implements MeterBinder {
+
+    private final String name;
+    private final int maxSize;
+    private final Cache<K, V> cache;
+
+    private final Object writeLock = new Object();
+    private volatile long generation;
+
+    public LocalCache(final String name, final int maxSize, final Duration ttl) {
+        this(name, maxSize, ttl, System::nanoTime);
+    }
+
+    LocalCache(final String name, final int maxSize, final Duration ttl, final LongSupplier ticker) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .expireAfterWrite(ttl)
+                .ticker(ticker::getAsLong)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<V> getIfPresent(final K key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Write-through store of a value known to be current.
+     */
+    public void put(final K key, final V value) {
+        synchronized (writeLock) {
+            generation++;
+            store(key, value);
+        }
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a loaded value unless the cache was written or invalidated since {@code loadGeneration}.
+     */
+    public void putIfUnchanged(final K key, final V value, final long loadGeneration) {
+        synchronized (writeLock) {
+            if (generation == loadGeneration) {
+                store(key, value);
+            }
+        }
+    }
+
+    public void invalidate(final K key) {
+        synchronized (writeLock) {
+            generation++;
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateIf(final Predicate<K> keys) {
+        invalidateIf((key, value) -> keys.test(key));
+    }
+
+    public void invalidateIf(final BiPredicate<K, V> entries) {
+        synchronized (writeLock) {
+            generation++;
+            cache.asMap().entrySet().removeIf(entry -> entries.test(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (writeLock) {
+            generation++;
+            cache.invalidateAll();
+        }
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        cache.cleanUp();
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        new CaffeineCacheMetrics(cache, name, emptyList()).bindTo(registry);
+    }
+
+    private void store(final K key, final V value) {
+        if (maxSize > 0) {
+            cache.put(key, value);
+        }
+    }
+}
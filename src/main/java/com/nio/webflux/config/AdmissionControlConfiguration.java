@@ -0,0 +1,42 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.server.AdmissionControlFilter;
+import com.nio.webflux.server.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({AdmissionControlProperties.class, CarsSchedulerProperties.class})
+public class AdmissionControlConfiguration {
+
+    @Autowired
+    private AdmissionControlProperties properties;
+
+    @Autowired
+    private CarsSchedulerProperties schedulerProperties;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cars.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AdmissionControlFilter admissionControlFilter() {
+        return new AdmissionControlFilter(limiter(properties.getReads()), limiter(properties.getWrites()),
+                streamsLimiter(), properties.getRejectionStatus(), properties.getExcludedPaths());
+    }
+
+    private ConcurrencyLimiter streamsLimiter() {
+        if (properties.getStreams().getInitial() > 0) {
+            return limiter(properties.getStreams());
+        }
+        return ConcurrencyLimiter.fixed(schedulerProperties.getStreams());
+    }
+
+    private ConcurrencyLimiter limiter(AdmissionControlProperties.Limit limit) {
+        if (limit.getType() == AdmissionControlProperties.Type.FIXED) {
+            return ConcurrencyLimiter.fixed(limit.getInitial());
+        }
+        return ConcurrencyLimiter.gradient(limit.getInitial(), limit.getMin(), limit.getMax(),
+                properties.getRttTolerance(), properties.getSmoothing());
+    }
+}
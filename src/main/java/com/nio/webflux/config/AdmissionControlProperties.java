@@ -0,0 +1,79 @@
+package com.nio.webflux.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+@Data
+@ConfigurationProperties(prefix = "cars.admission")
+public class AdmissionControlProperties {
+
+    /**
+     * Limit concurrent /cars requests, rejecting the ones over the limit.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Answer to rejected requests: 503 (the server is overloaded) or 429.
+     */
+    private HttpStatus rejectionStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+    /**
+     * Long-lived endpoints, never limited.
+     */
+    private List<String> excludedPaths = new ArrayList<>(asList("/cars/stream", "/cars/_bulk"));
+
+    /**
+     * GET and HEAD requests, and the POST multi-get.
+     */
+    private Limit reads = new Limit(Type.GRADIENT, 50, 10, 1000);
+
+    /**
+     * Every other request: createCar, updateCar and delete.
+     */
+    private Limit writes = new Limit(Type.GRADIENT, 20, 5, 200);
+
+    /**
+     * GET /cars streamed as application/stream+json, which lasts as long as the client reads. An initial limit
+     * of 0 admits cars.scheduler.streams at once, the streams the database is allowed to keep open, so excess
+     * ones are shed here rather than by the wait budget.
+     */
+    private Limit streams = new Limit(Type.FIXED, 0, 1, 0);
+
+    /**
+     * Latency growth over the long-term average tolerated before a GRADIENT limit shrinks.
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Weight of each new GRADIENT estimate, between 0 (never move) and 1 (follow every sample).
+     */
+    private double smoothing = 0.2;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Limit {
+        private Type type;
+
+        /**
+         * Concurrent requests allowed at start, and always with FIXED.
+         */
+        private int initial;
+
+        private int min;
+
+        private int max;
+    }
+
+    public enum Type {
+        FIXED, GRADIENT
+    }
+}
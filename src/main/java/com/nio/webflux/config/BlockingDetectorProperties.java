@@ -0,0 +1,21 @@
+package com.nio.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "cars.blocking-detector")
+public class BlockingDetectorProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Names of threads that must never block, on top of Reactor's own non-blocking threads.
+     */
+    private String threadNamePattern = "reactor-http-.*";
+
+    /**
+     * Reject the call instead of only reporting it.
+     */
+    private boolean fail = false;
+}
@@ -0,0 +1,37 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.BatchLoader;
+import com.nio.webflux.service.CarsService;
+import com.nio.webflux.service.DatabaseWaitBudget;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.core.scheduler.Scheduler;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Configuration
+@Profile("!r2dbc")
+@EnableConfigurationProperties(CarsBatchProperties.class)
+public class CarsBatchConfiguration {
+
+    @Autowired
+    private CarsBatchProperties properties;
+
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnExpression("${cars.batch.by-id.max-size:100} > 1 and !'${cars.scheduler.type:BOUNDED}'.equalsIgnoreCase('IMMEDIATE')")
+    public BatchLoader<String, Car> carsByIdLoader(CarsService carsService, @Qualifier("carsScheduler") Scheduler carsScheduler,
+                                                   DatabaseWaitBudget databaseWaitBudget, DataSource dataSource) throws SQLException {
+        int concurrency = properties.getConcurrency() > 0 ? properties.getConcurrency()
+                : dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        return new BatchLoader<>(properties.getMaxSize(), properties.getWindow(), concurrency,
+                ids -> databaseWaitBudget.call(() -> carsService.loadAllById(ids), carsScheduler));
+    }
+}
@@ -0,0 +1,28 @@
+package com.nio.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cars.batch.by-id")
+public class CarsBatchProperties {
+
+    /**
+     * Maximum number of ids loaded by one findAllById, 1 or less disables batching. The IMMEDIATE scheduler
+     * disables it too: batches would be loaded on the timer thread closing the window instead of the event loop
+     * that scheduler is meant to block.
+     */
+    private int maxSize = 100;
+
+    /**
+     * How long the first id of a batch waits for others to join it.
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * Batches loaded at once, 0 uses the connection pool size.
+     */
+    private int concurrency = 0;
+}
@@ -0,0 +1,29 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.cache.LocalCache;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.CarsQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(CarsCacheProperties.class)
+public class CarsCacheConfiguration {
+
+    @Autowired
+    private CarsCacheProperties properties;
+
+    @Bean
+    public LocalCache<String, Car> carsByIdCache() {
+        return new LocalCache<>("cars.byId", properties.getById().getMaxSize(), properties.getById().getTtl());
+    }
+
+    @Bean
+    public LocalCache<CarsQuery, List<Car>> carsQueryCache() {
+        return new LocalCache<>("cars.queries", properties.getQueries().getMaxSize(), properties.getQueries().getTtl());
+    }
+}
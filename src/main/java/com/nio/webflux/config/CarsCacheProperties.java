@@ -0,0 +1,36 @@
+package com.nio.webflux.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cars.cache")
+public class CarsCacheProperties {
+
+    /**
+     * Cars by id, read through by findById and kept up to date by create, update and delete.
+     */
+    private Spec byId = new Spec(10_000, Duration.ofMinutes(1));
+
+    /**
+     * Results of findByModel, findByYear and findByModelAndYear keyed by their parameters. Creates, updates
+     * and deletes drop only the entries whose filter matches the car before and after the change.
+     */
+    private Spec queries = new Spec(1_000, Duration.ofSeconds(30));
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Spec {
+        /**
+         * Maximum number of entries, 0 disables the cache.
+         */
+        private int maxSize;
+
+        private Duration ttl;
+    }
+}
@@ -0,0 +1,74 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.service.DatabaseWaitBudget;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Sizes the Hikari pool after the schedulers running the repository calls and the streams, and gives them the
+ * same wait budget.
+ * Hikari publishes its own acquisition time, active and pending connection metrics ({@code hikaricp.connections.*}).
+ */
+@Configuration
+@Profile("!r2dbc")
+@EnableConfigurationProperties({CarsPoolProperties.class, CarsSchedulerProperties.class})
+public class CarsPoolConfiguration {
+
+    private static final long MIN_CONNECTION_TIMEOUT_MILLIS = 250;
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Autowired
+    private CarsPoolProperties properties;
+
+    @Autowired
+    private CarsSchedulerProperties schedulerProperties;
+
+    @Bean
+    public DatabaseWaitBudget databaseWaitBudget() {
+        return new DatabaseWaitBudget(properties.getMaxWait(), schedulerProperties.getStreams());
+    }
+
+    @Bean
+    public static BeanPostProcessor carsPoolSizing(ObjectProvider<CarsPoolProperties> pool,
+                                                   ObjectProvider<CarsSchedulerProperties> scheduler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    configure((HikariDataSource) bean, pool.getObject(), scheduler.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static void configure(HikariDataSource dataSource, CarsPoolProperties pool, CarsSchedulerProperties scheduler) {
+        int size = pool.getSize() > 0 ? pool.getSize() : size(dataSource, scheduler);
+        dataSource.setPoolName("cars");
+        dataSource.setMaximumPoolSize(size);
+        dataSource.setMinimumIdle(size);
+        dataSource.setConnectionTimeout(Math.max(MIN_CONNECTION_TIMEOUT_MILLIS, pool.getMaxWait().toMillis()));
+    }
+
+    /**
+     * One connection per thread that may run a repository call: the scheduler's cap plus the stream threads.
+     * IMMEDIATE runs them on the event loop and keeps the configured size, or Hikari's default.
+     */
+    private static int size(HikariDataSource dataSource, CarsSchedulerProperties scheduler) {
+        switch (scheduler.getType()) {
+            case BOUNDED:
+                return scheduler.getThreads() + scheduler.getStreams();
+            case ELASTIC:
+                return scheduler.getMaxThreads() + scheduler.getStreams();
+            default:
+                return dataSource.getMaximumPoolSize() > 0 ? dataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+        }
+    }
+}
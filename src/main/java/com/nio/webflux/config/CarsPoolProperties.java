@@ -0,0 +1,24 @@
+package com.nio.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cars.pool")
+public class CarsPoolProperties {
+
+    /**
+     * Connections in the (fixed size) pool. 0 uses one per cars.scheduler thread (threads with BOUNDED, max-threads
+     * with ELASTIC) and stream, which never leaves a scheduler thread waiting for a connection, and Hikari's
+     * default with IMMEDIATE.
+     */
+    private int size = 0;
+
+    /**
+     * Longest a repository call may wait for a scheduler thread, and then for a connection, before failing
+     * with 503. Hikari does not accept connection timeouts under 250ms.
+     */
+    private Duration maxWait = Duration.ofMillis(500);
+}
@@ -0,0 +1,120 @@
+package com.nio.webflux.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.nio.webflux.config.CarsSchedulerProperties.Type.IMMEDIATE;
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+@Configuration
+@EnableConfigurationProperties(CarsSchedulerProperties.class)
+public class CarsSchedulerConfiguration {
+
+    @Autowired
+    private CarsSchedulerProperties properties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler carsScheduler() {
+        switch (properties.getType()) {
+            case IMMEDIATE:
+                return Schedulers.immediate();
+            case ELASTIC:
+                return scheduler(properties.getMaxThreads(), properties.getThreadNamePrefix());
+            default:
+                return scheduler(properties.getThreads(), properties.getThreadNamePrefix());
+        }
+    }
+
+    /**
+     * Reads the open streams, so a slow consumer never holds one of the {@code carsScheduler} threads.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler carsStreamScheduler() {
+        if (properties.getType() == IMMEDIATE) {
+            return Schedulers.immediate();
+        }
+        return scheduler(properties.getStreams(), properties.getThreadNamePrefix() + "-stream");
+    }
+
+    private Scheduler scheduler(int threads, String threadNamePrefix) {
+        return Schedulers.fromExecutorService(monitored(boundedExecutor(threads, threadNamePrefix), threadNamePrefix));
+    }
+
+    /**
+     * Threads are started on demand up to {@code threads} and stopped after {@code keepAlive} idle, so a
+     * large ELASTIC cap costs nothing until the load needs it. A cancelled task leaves the queue at once, so
+     * calls given up on by the {@link com.nio.webflux.service.DatabaseWaitBudget} free their place.
+     */
+    private ThreadPoolExecutor boundedExecutor(int threads, String threadNamePrefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix + "-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new RemoveOnCancelExecutor(threads, properties.getKeepAlive().toMillis(),
+                properties.getQueueCapacity(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private ExecutorService monitored(ThreadPoolExecutor executor, String threadNamePrefix) {
+        if (meterRegistry == null) {
+            return executor;
+        }
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, threadNamePrefix, emptyList());
+    }
+
+    private static class RemoveOnCancelExecutor extends ThreadPoolExecutor {
+
+        RemoveOnCancelExecutor(int threads, long keepAliveMillis, int queueCapacity, ThreadFactory threadFactory) {
+            super(threads, threads, keepAliveMillis, MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            return new RemovingTask<>(callable);
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+            return new RemovingTask<>(runnable, value);
+        }
+
+        private class RemovingTask<T> extends FutureTask<T> {
+
+            RemovingTask(Callable<T> callable) {
+                super(callable);
+            }
+
+            RemovingTask(Runnable runnable, T value) {
+                super(runnable, value);
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    remove(this);
+                }
+                return cancelled;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.nio.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cars.scheduler")
+public class CarsSchedulerProperties {
+
+    /**
+     * Where blocking repository calls run: a dedicated pool of {@code threads}, an elastic pool of up to
+     * {@code maxThreads} or the calling thread (blocking the event loop, kept for comparison).
+     */
+    private Type type = Type.BOUNDED;
+
+    private int threads = 10;
+
+    /**
+     * Thread cap of the ELASTIC pool, ten per core by default.
+     */
+    private int maxThreads = 10 * Runtime.getRuntime().availableProcessors();
+
+    private int queueCapacity = 1000;
+
+    /**
+     * Streams read at once, each on its own thread and connection, on top of {@code threads}.
+     */
+    private int streams = 2;
+
+    private Duration keepAlive = Duration.ofSeconds(60);
+
+    private String threadNamePrefix = "cars-db";
+
+    public enum Type {
+        BOUNDED, ELASTIC, IMMEDIATE
+    }
+}
@@ -0,0 +1,30 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.service.CarsSeeder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(CarsSeedProperties.class)
+public class CarsSeedConfiguration {
+
+    @Autowired
+    private CarsSeedProperties properties;
+
+    @Bean
+    @ConditionalOnExpression("${cars.seed.count:5} > 0")
+    public CarsSeeder carsSeeder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, DataSource dataSource) {
+        HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        return new CarsSeeder(jdbcTemplate, transactionManager, properties,
+                pool != null ? pool.getMaximumPoolSize() : Integer.MAX_VALUE);
+    }
+}
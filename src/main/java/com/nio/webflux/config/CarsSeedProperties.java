@@ -0,0 +1,52 @@
+package com.nio.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "cars.seed")
+public class CarsSeedProperties {
+
+    /**
+     * Synthetic cars inserted at startup when the table is empty, 0 disables the loader.
+     */
+    private int count = 5;
+
+    /**
+     * Ids are the prefix followed by the index padded to seven digits, e.g. CAR0000042.
+     */
+    private String idPrefix = "CAR";
+
+    /**
+     * Distinct models, named model0 to model(N-1).
+     */
+    private int models = 50;
+
+    /**
+     * Zipf exponent of the model distribution: 0 is uniform, 1 makes model0 twice as common as model1 and
+     * N times as common as the last one.
+     */
+    private double modelSkew = 0;
+
+    /**
+     * Years are uniform between both, inclusive.
+     */
+    private int firstYear = 1990;
+
+    private int lastYear = 2019;
+
+    /**
+     * Cars per JDBC batch, each batch in its own transaction.
+     */
+    private int batchSize = 5_000;
+
+    /**
+     * Batches inserted in parallel, 0 for one per core.
+     */
+    private int threads = 0;
+
+    /**
+     * The same seed and settings always generate the same cars.
+     */
+    private long randomSeed = 42;
+}
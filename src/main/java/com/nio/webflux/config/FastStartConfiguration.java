@@ -0,0 +1,61 @@
+package com.nio.webflux.config;
+
+import lombok.extern.apachecommons.CommonsLog;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * {@code fast-start} profile: beans are created on first use rather than while starting, as Spring Boot 2.2's
+ * {@code spring.main.lazy-initialization} does. With {@code cars.startup.training-run=true} the application answers
+ * one request of each kind and exits, which is how the {@code fast-start} Maven build records its AppCDS class list.
+ */
+@Configuration
+@Profile("fast-start")
+@CommonsLog
+public class FastStartConfiguration {
+
+    private static final String TRAINING_CAR = "{\"id\":\"0000CDS\",\"model\":\"training\",\"year\":2000}";
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyInitialization() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.getRole() == BeanDefinition.ROLE_APPLICATION) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cars.startup", name = "training-run", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> trainingRun() {
+        return event -> {
+            ReactiveWebServerApplicationContext context = (ReactiveWebServerApplicationContext) event.getApplicationContext();
+            WebClient client = WebClient.create("http://localhost:" + context.getWebServer().getPort());
+            Duration timeout = Duration.ofSeconds(30);
+            client.post().uri("/cars").contentType(APPLICATION_JSON).syncBody(TRAINING_CAR)
+                    .retrieve().bodyToMono(String.class).block(timeout);
+            client.get().uri("/cars").accept(APPLICATION_JSON).retrieve().bodyToMono(String.class).block(timeout);
+            client.get().uri("/cars/0000CDS").retrieve().bodyToMono(String.class).block(timeout);
+            client.put().uri("/cars").contentType(APPLICATION_JSON).syncBody(TRAINING_CAR)
+                    .retrieve().bodyToMono(String.class).block(timeout);
+            log.info("Training run complete, exiting");
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+}
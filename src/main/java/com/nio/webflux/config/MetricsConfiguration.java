@@ -0,0 +1,60 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.metrics.BlockingCallDetector;
+import com.nio.webflux.metrics.NettyServerMetrics;
+import com.nio.webflux.metrics.StartupMetrics;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.regex.Pattern;
+
+@Configuration
+@EnableConfigurationProperties(BlockingDetectorProperties.class)
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public NettyServerMetrics nettyServerMetrics() {
+        return new NettyServerMetrics();
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyServerMetricsCustomizer(NettyServerMetrics nettyServerMetrics) {
+        return factory -> factory.addServerCustomizers(nettyServerMetrics);
+    }
+
+    @Bean
+    public StartupMetrics startupMetrics() {
+        return new StartupMetrics();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cars.blocking-detector", name = "enabled", havingValue = "true")
+    public static BeanPostProcessor blockingCallDetector(ObjectProvider<BlockingDetectorProperties> properties,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof BlockingCallDetector) {
+                    return bean;
+                }
+                BlockingDetectorProperties detector = properties.getObject();
+                return new BlockingCallDetector((DataSource) bean, Pattern.compile(detector.getThreadNamePattern()),
+                        detector.isFail(), meterRegistry::getIfAvailable);
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.nio.webflux.config;
+
+import com.nio.webflux.server.NettyServerTuning;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+@Configuration
+@EnableConfigurationProperties(NettyServerProperties.class)
+public class NettyServerConfiguration {
+
+    @Autowired
+    private NettyServerProperties properties;
+
+    /**
+     * Dedicated event loops when a thread count is set, named like reactor-netty's own so thread based
+     * tooling keeps recognising them. Without it the server stays on the shared reactor-netty loops.
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnExpression("${cars.netty.event-loop-threads:0} > 0")
+    public LoopResources serverLoops() {
+        return LoopResources.create("reactor-http", 1, properties.getEventLoopThreads(), true);
+    }
+
+    @Bean
+    public NettyServerTuning nettyServerTuning(ObjectProvider<LoopResources> serverLoops) {
+        return new NettyServerTuning(properties, serverLoops.getIfAvailable(HttpResources::get));
+    }
+
+    /**
+     * The tuning picks the event loops and transport itself, so Boot must not bind the server to the
+     * ReactorResourceFactory loops first.
+     */
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyServerTuningCustomizer(NettyServerTuning nettyServerTuning) {
+        return factory -> {
+            factory.setResourceFactory(null);
+            factory.addServerCustomizers(nettyServerTuning);
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.nio.webflux.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cars.netty")
+public class NettyServerProperties {
+
+    /**
+     * Event loop threads serving connections, 0 keeps reactor-netty's default (one per core, at least 4).
+     */
+    private int eventLoopThreads = 0;
+
+    /**
+     * Use the native epoll transport on Linux when available, falling back to NIO otherwise.
+     */
+    private boolean nativeTransport = true;
+
+    /**
+     * Pending connections the kernel queues while the server is busy accepting (SO_BACKLOG).
+     */
+    private int backlog = 1024;
+
+    /**
+     * Close keep-alive connections that carry no request for this long, 0 keeps them open.
+     */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+
+    /**
+     * Open connections above this are closed as soon as they are accepted, 0 for no limit.
+     */
+    private int maxConnections = 0;
+
+    /**
+     * Allocate buffers from Netty's pools instead of on demand.
+     */
+    private boolean pooledBuffers = true;
+
+    /**
+     * Allocate direct (off-heap) buffers, saving a copy on socket reads and writes.
+     */
+    private boolean directBuffers = true;
+}
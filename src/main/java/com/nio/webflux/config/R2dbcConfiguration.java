@@ -0,0 +1,29 @@
+package com.nio.webflux.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Only active with the {@code r2dbc} Spring profile.
+ * The default URL points at the same in-memory H2 database the JPA path creates and seeds, so both
+ * engines are measured against identical data.
+ */
+@Configuration
+@Profile("r2dbc")
+public class R2dbcConfiguration {
+
+    @Bean
+    public ConnectionFactory connectionFactory(@Value("${cars.r2dbc.url}") String url,
+                                               @Value("${cars.r2dbc.username}") String username,
+                                               @Value("${cars.r2dbc.password:}") String password) {
+        return ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+    }
+}
@@ -1,52 +1,103 @@
 package com.nio.webflux.controller;
 
+import com.nio.webflux.exception.TooManyIdsException;
+import com.nio.webflux.model.BulkResult;
 import com.nio.webflux.model.Car;
-import com.nio.webflux.service.CarsService;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
+import com.nio.webflux.service.ReactiveCarsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import static reactor.core.publisher.Flux.fromIterable;
-import static reactor.core.publisher.Mono.empty;
-import static reactor.core.publisher.Mono.just;
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RestController
 @RequestMapping(value = "/cars")
 public class CarsController {
 
     @Autowired
-    private CarsService carsService;
+    private ReactiveCarsService carsService;
+
+    @Value("${cars.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${cars.mget.max-ids:100}")
+    private int maxIds;
 
+    /**
+     * Answers the collected list rather than a Flux so the response has a Content-Length: the ETag needs the
+     * whole list anyway, and only then does server.compression.min-response-size apply.
+     */
     @GetMapping
-    public Flux<Car> find(@RequestParam(required = false) String model, @RequestParam(required = false) Integer year) {
+    public Mono<List<Car>> find(@RequestParam(required = false) String model, @RequestParam(required = false) Integer year,
+                                ServerWebExchange exchange) {
+        return CarsQueries.find(carsService, model, year)
+                .collectList()
+                .filter(cars -> !exchange.checkNotModified(ETags.of(cars)));
+    }
+
+    @GetMapping(params = {"size", "!ids"})
+    public Mono<CarsPage> findPage(@RequestParam(required = false) String model, @RequestParam(required = false) Integer year,
+                                   @RequestParam(required = false) String after, @RequestParam int size,
+                                   ServerWebExchange exchange) {
+        return carsService.findPage(model, year, after, Math.max(1, Math.min(size, maxPageSize)))
+                .filter(page -> !exchange.checkNotModified(ETags.of(page)));
+    }
+
+    @GetMapping(params = "ids")
+    public Flux<LookupResult> findByIds(@RequestParam List<String> ids) {
+        if (ids.size() > maxIds) {
+            return Flux.error(new TooManyIdsException("At most " + maxIds + " ids per request, got " + ids.size()));
+        }
+        return carsService.findAllById(Flux.fromIterable(ids));
+    }
+
+    @PostMapping(value = "/_mget", consumes = APPLICATION_JSON_VALUE)
+    public Flux<LookupResult> findByIdsInBody(@RequestBody List<String> ids) {
+        return findByIds(ids);
+    }
+
+    @GetMapping(produces = APPLICATION_STREAM_JSON_VALUE)
+    public Flux<Car> stream(@RequestParam(required = false) String model, @RequestParam(required = false) Integer year) {
         if (model == null && year == null) {
-            return fromIterable(carsService.findAll());
-        } else if (model != null && year != null) {
-            return fromIterable(carsService.findByModelAndYear(model, year));
-        } else if (year != null) {
-            return fromIterable(carsService.findByYear(year));
+            return carsService.streamAll();
         }
 
-        return fromIterable(carsService.findByModel(model));
+        return CarsQueries.find(carsService, model, year);
+    }
+
+    @GetMapping(value = "/stream", produces = {TEXT_EVENT_STREAM_VALUE, APPLICATION_STREAM_JSON_VALUE})
+    public Flux<CarChange> changes() {
+        return carsService.changes();
     }
 
     @GetMapping("/{id}")
-    public Mono<Car> findById(@PathVariable String id) {
+    public Mono<Car> findById(@PathVariable String id, ServerWebExchange exchange) {
         return carsService.findById(id)
-                .map(Mono::just)
-                .orElse(empty());
+                .filter(car -> !exchange.checkNotModified(ETags.of(car)));
     }
 
     @PostMapping
     public Mono<Car> createCar(@RequestBody Car car) {
-        return just(carsService.create(car));
+        return carsService.create(car);
+    }
+
+    @PostMapping(value = "/_bulk", consumes = {APPLICATION_JSON_VALUE, APPLICATION_STREAM_JSON_VALUE})
+    public Flux<BulkResult> createCars(@RequestBody Flux<Car> cars, @RequestParam(defaultValue = "false") boolean upsert) {
+        return carsService.createAll(cars, upsert);
     }
 
     @PutMapping
     public Mono<Car> updateCar(@RequestBody Car car) {
-        return just(carsService.update(car));
+        return carsService.update(car);
     }
-
-
 }
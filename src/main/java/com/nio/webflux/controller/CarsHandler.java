@@ -0,0 +1,71 @@
+package com.nio.webflux.controller;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.ReactiveCarsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.web.reactive.function.server.ServerResponse.ok;
+import static org.springframework.web.reactive.function.server.ServerResponse.status;
+
+/**
+ * Functional endpoints for the core car operations, answering exactly like {@link CarsController}
+ * (including ETags) without argument resolution or reflective invocation. Routed by {@link CarsRouter}.
+ */
+@Component
+@Profile("functional")
+public class CarsHandler {
+
+    @Autowired
+    private ReactiveCarsService carsService;
+
+    public Mono<ServerResponse> find(final ServerRequest request) {
+        String model = request.queryParam("model").orElse(null);
+        return CarsQueries.find(carsService, model, year(request))
+                .collectList()
+                .flatMap(cars -> conditional(request, ETags.of(cars), cars));
+    }
+
+    public Mono<ServerResponse> findById(final ServerRequest request) {
+        return carsService.findById(request.pathVariable("id"))
+                .flatMap(car -> conditional(request, ETags.of(car), car))
+                .switchIfEmpty(ok().build());
+    }
+
+    public Mono<ServerResponse> createCar(final ServerRequest request) {
+        return request.bodyToMono(Car.class)
+                .flatMap(carsService::create)
+                .flatMap(car -> ok().contentType(APPLICATION_JSON).syncBody(car));
+    }
+
+    public Mono<ServerResponse> updateCar(final ServerRequest request) {
+        return request.bodyToMono(Car.class)
+                .flatMap(carsService::update)
+                .flatMap(car -> ok().contentType(APPLICATION_JSON).syncBody(car));
+    }
+
+    /**
+     * Rejected with 400 like the {@code @RequestParam Integer year} conversion of {@link CarsController}.
+     */
+    private static Integer year(final ServerRequest request) {
+        try {
+            return request.queryParam("year").map(Integer::valueOf).orElse(null);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid year: " + request.queryParam("year").orElse(null));
+        }
+    }
+
+    private Mono<ServerResponse> conditional(final ServerRequest request, final String etag, final Object body) {
+        if (request.exchange().checkNotModified(etag)) {
+            return status(NOT_MODIFIED).build();
+        }
+        return ok().contentType(APPLICATION_JSON).syncBody(body);
+    }
+}
@@ -0,0 +1,27 @@
+package com.nio.webflux.controller;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.ReactiveCarsService;
+import reactor.core.publisher.Flux;
+
+/**
+ * Picks the finder for the optional {@code model} and {@code year} of {@code GET /cars}, shared by
+ * {@link CarsController} and {@link CarsHandler} so both dispatches answer the same query the same way.
+ */
+final class CarsQueries {
+
+    private CarsQueries() {
+    }
+
+    static Flux<Car> find(final ReactiveCarsService carsService, final String model, final Integer year) {
+        if (model == null && year == null) {
+            return carsService.findAll();
+        } else if (model != null && year != null) {
+            return carsService.findByModelAndYear(model, year);
+        } else if (year != null) {
+            return carsService.findByYear(year);
+        }
+
+        return carsService.findByModel(model);
+    }
+}
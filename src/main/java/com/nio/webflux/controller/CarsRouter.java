@@ -0,0 +1,38 @@
+package com.nio.webflux.controller;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Routes find, findById, createCar and updateCar to {@link CarsHandler} under the {@code functional}
+ * profile. Router functions are consulted before request mappings, so everything else (pages, streams,
+ * multi-get, bulk) still reaches {@link CarsController}.
+ */
+@Configuration
+@Profile("functional")
+public class CarsRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> carsRoutes(CarsHandler carsHandler) {
+        return route(GET("/cars").and(plainQuery()).and(accept(APPLICATION_JSON)), carsHandler::find)
+                .andRoute(GET("/cars/{id}").and(request -> !request.path().equals("/cars/stream")), carsHandler::findById)
+                .andRoute(POST("/cars").and(contentType(APPLICATION_JSON)), carsHandler::createCar)
+                .andRoute(PUT("/cars").and(contentType(APPLICATION_JSON)), carsHandler::updateCar);
+    }
+
+    private static RequestPredicate plainQuery() {
+        return request -> !request.queryParam("size").isPresent() && !request.queryParam("ids").isPresent();
+    }
+}
@@ -0,0 +1,16 @@
+package com.nio.webflux.exception;
+
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+@ResponseStatus(SERVICE_UNAVAILABLE)
+public class DatabaseBusyException extends RuntimeException {
+    public DatabaseBusyException(final String message) {
+        super(message);
+    }
+
+    public DatabaseBusyException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
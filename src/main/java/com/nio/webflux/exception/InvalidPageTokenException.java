@@ -0,0 +1,12 @@
+package com.nio.webflux.exception;
+
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+@ResponseStatus(BAD_REQUEST)
+public class InvalidPageTokenException extends RuntimeException {
+    public InvalidPageTokenException(final String message) {
+        super(message);
+    }
+}
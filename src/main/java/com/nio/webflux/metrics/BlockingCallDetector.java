@@ -0,0 +1,67 @@
+package com.nio.webflux.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.apachecommons.CommonsLog;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import reactor.core.scheduler.NonBlocking;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * BlockHound-style check at the JDBC boundary: every connection taken from the pool on a non-blocking
+ * thread (reactor-netty event loops, Reactor parallel and single schedulers) is counted in
+ * {@code cars.blocking.calls} and reported with the stack trace of the offending call, or rejected
+ * when {@code fail} is set.
+ */
+@CommonsLog
+public class BlockingCallDetector extends DelegatingDataSource {
+
+    private final Pattern nonBlockingThreads;
+    private final boolean fail;
+    private final Supplier<MeterRegistry> registry;
+
+    public BlockingCallDetector(final DataSource dataSource, final Pattern nonBlockingThreads, final boolean fail,
+                                final Supplier<MeterRegistry> registry) {
+        super(dataSource);
+        this.nonBlockingThreads = nonBlockingThreads;
+        this.fail = fail;
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        check();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        check();
+        return super.getConnection(username, password);
+    }
+
+    private void check() {
+        Thread thread = Thread.currentThread();
+        if (!(thread instanceof NonBlocking) && !nonBlockingThreads.matcher(thread.getName()).matches()) {
+            return;
+        }
+        MeterRegistry meterRegistry = registry.get();
+        if (meterRegistry != null) {
+            Counter.builder("cars.blocking.calls")
+                    .description("JDBC connections requested from non-blocking threads")
+                    .tag("thread", thread.getName().replaceAll("-\\d+$", ""))
+                    .register(meterRegistry)
+                    .increment();
+        }
+        IllegalStateException blockingCall = new IllegalStateException("Blocking JDBC call on non-blocking thread " + thread.getName());
+        if (fail) {
+            throw blockingCall;
+        }
+        log.warn(blockingCall.getMessage(), blockingCall);
+    }
+}
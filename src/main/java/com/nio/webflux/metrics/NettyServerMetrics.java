@@ -0,0 +1,78 @@
+package com.nio.webflux.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import reactor.netty.channel.BootstrapHandlers;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * reactor-netty 0.8 has no metrics of its own: this counts server connections and, for every event loop
+ * that accepted one, publishes the number of tasks waiting to run on it. A growing queue there means
+ * something is blocking the loop.
+ */
+public class NettyServerMetrics implements NettyServerCustomizer, MeterBinder {
+
+    private final AtomicLong activeConnections = new AtomicLong();
+    private final LongAdder totalConnections = new LongAdder();
+    private final List<EventLoop> eventLoops = new ArrayList<>();
+
+    private MeterRegistry registry;
+
+    @Override
+    public HttpServer apply(final HttpServer httpServer) {
+        return httpServer.tcpConfiguration(tcpServer -> tcpServer.bootstrap(bootstrap ->
+                BootstrapHandlers.updateConfiguration(bootstrap, "carsConnectionMetrics", (observer, channel) -> onAccept(channel))));
+    }
+
+    @Override
+    public synchronized void bindTo(final MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("reactor.netty.connections.active", activeConnections, AtomicLong::get)
+                .description("Open server connections")
+                .register(registry);
+        FunctionCounter.builder("reactor.netty.connections.total", totalConnections, LongAdder::sum)
+                .description("Accepted server connections")
+                .register(registry);
+        for (int i = 0; i < eventLoops.size(); i++) {
+            bindPendingTasks(eventLoops.get(i), i);
+        }
+    }
+
+    private void onAccept(final Channel channel) {
+        activeConnections.incrementAndGet();
+        totalConnections.increment();
+        channel.closeFuture().addListener(closed -> activeConnections.decrementAndGet());
+        track(channel.eventLoop());
+    }
+
+    private synchronized void track(final EventLoop eventLoop) {
+        if (eventLoops.contains(eventLoop)) {
+            return;
+        }
+        eventLoops.add(eventLoop);
+        if (registry != null) {
+            bindPendingTasks(eventLoop, eventLoops.size() - 1);
+        }
+    }
+
+    private void bindPendingTasks(final EventLoop eventLoop, final int index) {
+        if (eventLoop instanceof SingleThreadEventExecutor) {
+            Gauge.builder("reactor.netty.eventloop.pending.tasks", (SingleThreadEventExecutor) eventLoop,
+                    SingleThreadEventExecutor::pendingTasks)
+                    .description("Tasks queued on a server event loop")
+                    .tag("eventloop", String.valueOf(index))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.nio.webflux.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.apachecommons.CommonsLog;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time from JVM start until the application is ready and until the first request has been answered, logged once
+ * and published as {@code cars.startup.ready} and {@code cars.startup.first-request}. With lazy initialisation
+ * the second one is what a new instance taking traffic actually costs.
+ */
+@CommonsLog
+public class StartupMetrics implements WebFilter, MeterBinder, ApplicationListener<ApplicationReadyEvent> {
+
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final AtomicLong ready = new AtomicLong();
+    private final AtomicLong firstRequest = new AtomicLong();
+
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        if (ready.compareAndSet(0, sinceJvmStart())) {
+            log.info("Application ready " + ready.get() + " ms after JVM start");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        if (firstRequest.get() != 0) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            if (firstRequest.compareAndSet(0, sinceJvmStart())) {
+                log.info("First request (" + exchange.getRequest().getMethod() + " " + exchange.getRequest().getPath()
+                        + ") answered " + firstRequest.get() + " ms after JVM start");
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        TimeGauge.builder("cars.startup.ready", ready, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from JVM start until the application was ready")
+                .register(registry);
+        TimeGauge.builder("cars.startup.first-request", firstRequest, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from JVM start until the first request was answered")
+                .register(registry);
+    }
+
+    private long sinceJvmStart() {
+        return Math.max(1, System.currentTimeMillis() - jvmStart);
+    }
+}
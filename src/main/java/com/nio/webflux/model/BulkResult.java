@@ -0,0 +1,34 @@
+package com.nio.webflux.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResult {
+    private String id;
+    private Status status;
+
+    /**
+     * Why the car was not written, only with {@link Status#FAILED}.
+     */
+    private String error;
+
+    public BulkResult(final String id, final Status status) {
+        this(id, status, null);
+    }
+
+    public static BulkResult failed(final Car car, final Throwable error) {
+        return new BulkResult(car.getId(), Status.FAILED, error.getMessage());
+    }
+
+    public enum Status {
+        CREATED, UPDATED, EXISTS, INVALID, FAILED
+    }
+}
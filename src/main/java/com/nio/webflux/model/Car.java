@@ -7,12 +7,16 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Data
 @AllArgsConstructor
 @Builder(toBuilder = true)
-@Table(name = "car")
+@Table(name = "car", indexes = {
+        @Index(name = "idx_car_model_year", columnList = "model, year"),
+        @Index(name = "idx_car_year", columnList = "year")
+})
 @Entity
 @NoArgsConstructor
 public class Car {
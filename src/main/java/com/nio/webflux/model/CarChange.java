@@ -0,0 +1,19 @@
+package com.nio.webflux.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class CarChange {
+    private Type type;
+    private Car car;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
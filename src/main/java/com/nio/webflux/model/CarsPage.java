@@ -0,0 +1,20 @@
+package com.nio.webflux.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+public class CarsPage {
+    private List<Car> cars;
+    /**
+     * Opaque continuation token to pass as {@code after} for the next page, {@code null} on the last page.
+     */
+    private String next;
+}
@@ -0,0 +1,26 @@
+package com.nio.webflux.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@Builder
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LookupResult {
+    private String id;
+    private Status status;
+    private Car car;
+
+    public static LookupResult of(final String id, final Car car) {
+        return car == null ? new LookupResult(id, Status.NOT_FOUND, null) : new LookupResult(id, Status.FOUND, car);
+    }
+
+    public enum Status {
+        FOUND, NOT_FOUND
+    }
+}
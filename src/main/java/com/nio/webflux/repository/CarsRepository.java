@@ -1,14 +1,23 @@
 package com.nio.webflux.repository;
 
 import com.nio.webflux.model.Car;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
-public interface CarsRepository extends JpaRepository<Car, String> {
+public interface CarsRepository extends JpaRepository<Car, String>, CarsRepositoryCustom {
     List<Car> findByYear(Integer year);
 
     List<Car> findByModel(String model);
 
     List<Car> findByModelAndYear(String model, Integer year);
+
+    List<Car> findByIdGreaterThanOrderById(String id, Pageable pageable);
+
+    List<Car> findByYearAndIdGreaterThanOrderById(Integer year, String id, Pageable pageable);
+
+    List<Car> findByModelAndIdGreaterThanOrderById(String model, String id, Pageable pageable);
+
+    List<Car> findByModelAndYearAndIdGreaterThanOrderById(String model, Integer year, String id, Pageable pageable);
 }
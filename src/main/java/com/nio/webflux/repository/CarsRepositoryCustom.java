@@ -0,0 +1,39 @@
+package com.nio.webflux.repository;
+
+import com.nio.webflux.model.Car;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface CarsRepositoryCustom {
+
+    /**
+     * Cursor over the whole table. Rows are fetched as the stream is consumed and nothing is kept in a
+     * persistence context, so the caller must close the stream to release the connection.
+     */
+    Stream<Car> streamAll();
+
+    /**
+     * Single INSERT relying on the primary key to reject duplicates, which surface as a
+     * {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    @Transactional
+    void insert(Car car);
+
+    /**
+     * Persists new cars without the per-entity SELECT that {@code save} does for assigned ids, so the
+     * inserts can be grouped into JDBC batches.
+     */
+    @Transactional
+    void insertAll(Collection<Car> cars);
+
+    /**
+     * Changes the model with a single UPDATE, no load or merge, then reads the updated row by primary key in
+     * the same transaction. Empty when the car does not exist.
+     */
+    @Transactional
+    Optional<Car> updateModel(String id, String model);
+}
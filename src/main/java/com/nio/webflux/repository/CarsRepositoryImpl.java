@@ -0,0 +1,67 @@
+package com.nio.webflux.repository;
+
+import com.nio.webflux.model.Car;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class CarsRepositoryImpl implements CarsRepositoryCustom {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cars.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public Stream<Car> streamAll() {
+        StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+        try {
+            return session.createQuery("select c from Car c", Car.class)
+                    .setFetchSize(fetchSize)
+                    .stream()
+                    .onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void insert(final Car car) {
+        entityManager.persist(car);
+        entityManager.flush();
+    }
+
+    @Override
+    public void insertAll(final Collection<Car> cars) {
+        cars.forEach(entityManager::persist);
+    }
+
+    @Override
+    public Optional<Car> updateModel(final String id, final String model) {
+        int updated = entityManager.createQuery("update Car c set c.model = :model where c.id = :id")
+                .setParameter("model", model)
+                .setParameter("id", id)
+                .executeUpdate();
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        // Constructor expression: the row as written, never an instance already managed by the persistence context
+        return entityManager.createQuery("select new com.nio.webflux.model.Car(c.id, c.model, c.year) from Car c where c.id = :id", Car.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+}
@@ -0,0 +1,193 @@
+package com.nio.webflux.repository;
+
+import com.nio.webflux.model.Car;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Same queries as {@link CarsRepository} over a non-blocking R2DBC driver.
+ */
+@Repository
+@Profile("r2dbc")
+public class R2dbcCarsRepository {
+
+    private static final String SELECT = "SELECT id, model, year FROM car";
+    private static final String INSERT = "INSERT INTO car (id, model, year) VALUES ($1, $2, $3)";
+    private static final String UPDATE = "UPDATE car SET model = $2, year = $3 WHERE id = $1";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    public Flux<Car> findAll() {
+        return query(connection -> connection.createStatement(SELECT));
+    }
+
+    public Flux<Car> findByYear(final Integer year) {
+        return query(connection -> connection.createStatement(SELECT + " WHERE year = $1")
+                .bind("$1", year));
+    }
+
+    public Flux<Car> findByModel(final String model) {
+        return query(connection -> connection.createStatement(SELECT + " WHERE model = $1")
+                .bind("$1", model));
+    }
+
+    public Flux<Car> findByModelAndYear(final String model, final Integer year) {
+        return query(connection -> connection.createStatement(SELECT + " WHERE model = $1 AND year = $2")
+                .bind("$1", model)
+                .bind("$2", year));
+    }
+
+    public Flux<Car> findPage(final String model, final Integer year, final String afterId, final int limit) {
+        return query(connection -> {
+            List<Object> bindings = new ArrayList<>();
+            StringBuilder sql = new StringBuilder(SELECT).append(" WHERE id > $1");
+            bindings.add(afterId);
+            if (model != null) {
+                bindings.add(model);
+                sql.append(" AND model = $").append(bindings.size());
+            }
+            if (year != null) {
+                bindings.add(year);
+                sql.append(" AND year = $").append(bindings.size());
+            }
+            sql.append(" ORDER BY id LIMIT ").append(limit);
+            Statement statement = connection.createStatement(sql.toString());
+            for (int i = 0; i < bindings.size(); i++) {
+                statement.bind("$" + (i + 1), bindings.get(i));
+            }
+            return statement;
+        });
+    }
+
+    public Mono<Car> findById(final String id) {
+        return query(connection -> connection.createStatement(SELECT + " WHERE id = $1")
+                .bind("$1", id))
+                .next();
+    }
+
+    public Flux<Car> findAllById(final Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return query(connection -> {
+            StringJoiner placeholders = new StringJoiner(", ", " WHERE id IN (", ")");
+            for (int i = 1; i <= ids.size(); i++) {
+                placeholders.add("$" + i);
+            }
+            Statement statement = connection.createStatement(SELECT + placeholders);
+            int i = 1;
+            for (String id : ids) {
+                statement.bind("$" + i++, id);
+            }
+            return statement;
+        });
+    }
+
+    /**
+     * Single INSERT relying on the primary key to reject duplicates, which surface as a
+     * {@link io.r2dbc.spi.R2dbcDataIntegrityViolationException}.
+     */
+    public Mono<Car> insert(final Car car) {
+        return update(connection -> bindCar(connection.createStatement(INSERT), car))
+                .thenReturn(car);
+    }
+
+    /**
+     * Single UPDATE, then the updated row read by primary key on the same connection. Empty when the car
+     * does not exist.
+     */
+    public Mono<Car> updateModel(final String id, final String model) {
+        return withConnection(connection -> Flux.from(connection.createStatement("UPDATE car SET model = $1 WHERE id = $2")
+                .bind("$1", model)
+                .bind("$2", id)
+                .execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0, Integer::sum)
+                .flatMapMany(updated -> updated == 0 ? Flux.<Car>empty() : select(connection,
+                        connection.createStatement(SELECT + " WHERE id = $1").bind("$1", id))))
+                .next();
+    }
+
+    /**
+     * Inserts {@code inserts} and replaces {@code updates} with one batched statement each, in one transaction.
+     */
+    public Mono<Void> writeAll(final List<Car> inserts, final List<Car> updates) {
+        return inTransaction(connection -> batch(connection, INSERT, inserts)
+                .concatWith(batch(connection, UPDATE, updates)))
+                .then();
+    }
+
+    public Mono<Integer> deleteById(final String id) {
+        return update(connection -> connection.createStatement("DELETE FROM car WHERE id = $1")
+                .bind("$1", id));
+    }
+
+    private Flux<Car> query(Function<Connection, Statement> statement) {
+        return withConnection(connection -> select(connection, statement.apply(connection)));
+    }
+
+    private Flux<Car> select(Connection connection, Statement statement) {
+        return Flux.from(statement.execute())
+                .flatMap(result -> result.map((row, metadata) -> toCar(row)));
+    }
+
+    private Flux<Integer> batch(Connection connection, String sql, List<Car> cars) {
+        if (cars.isEmpty()) {
+            return Flux.empty();
+        }
+        Statement statement = connection.createStatement(sql);
+        for (int i = 0; i < cars.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            bindCar(statement, cars.get(i));
+        }
+        return Flux.from(statement.execute())
+                .flatMap(Result::getRowsUpdated);
+    }
+
+    private Statement bindCar(Statement statement, Car car) {
+        return statement.bind("$1", car.getId())
+                .bind("$2", car.getModel())
+                .bind("$3", car.getYear());
+    }
+
+    private Mono<Integer> update(Function<Connection, Statement> statement) {
+        return withConnection(connection -> Flux.from(statement.apply(connection).execute())
+                .flatMap(Result::getRowsUpdated))
+                .reduce(0, Integer::sum);
+    }
+
+    private <T> Flux<T> withConnection(Function<Connection, Flux<T>> work) {
+        return Flux.usingWhen(connectionFactory.create(), work,
+                Connection::close, Connection::close, Connection::close);
+    }
+
+    private <T> Flux<T> inTransaction(Function<Connection, Flux<T>> work) {
+        return withConnection(connection -> Flux.usingWhen(Mono.from(connection.beginTransaction()).thenReturn(connection), work,
+                Connection::commitTransaction, Connection::rollbackTransaction, Connection::rollbackTransaction));
+    }
+
+    private Car toCar(Row row) {
+        return Car.builder()
+                .id(row.get("id", String.class))
+                .model(row.get("model", String.class))
+                .year(row.get("year", Integer.class))
+                .build();
+    }
+}
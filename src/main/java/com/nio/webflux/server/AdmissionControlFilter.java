@@ -0,0 +1,141 @@
+package com.nio.webflux.server;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON;
+
+/**
+ * Admission control for /cars: reads, writes and streams each get a {@link ConcurrencyLimiter}, and requests
+ * over the limit are answered at once with {@code rejectionStatus} and {@code Retry-After} rather than queueing
+ * behind the ones already in flight. Only completed, non-5xx responses feed the adaptive limits.
+ * <p>
+ * Requests are classified by route: streams are {@code GET /cars} asking for {@code application/stream+json},
+ * reads are the other GET and HEAD requests and {@code POST /cars/_mget}, and writes are everything else.
+ * Only {@code excludedPaths} are never limited.
+ */
+public class AdmissionControlFilter implements WebFilter, MeterBinder, Ordered {
+
+    private static final String PREFIX = "/cars";
+
+    private static final String MGET = PREFIX + "/_mget";
+
+    private final Route reads;
+    private final Route writes;
+    private final Route streams;
+    private final HttpStatus rejectionStatus;
+    private final List<String> excludedPaths;
+
+    public AdmissionControlFilter(final ConcurrencyLimiter reads, final ConcurrencyLimiter writes,
+                                  final ConcurrencyLimiter streams, final HttpStatus rejectionStatus,
+                                  final List<String> excludedPaths) {
+        this.reads = new Route("reads", reads);
+        this.writes = new Route("writes", writes);
+        this.streams = new Route("streams", streams);
+        this.rejectionStatus = rejectionStatus;
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        Route route = route(exchange.getRequest());
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        int inFlight = route.limiter.tryAcquire();
+        if (inFlight == 0) {
+            route.rejected.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(rejectionStatus);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return response.setComplete();
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> route.limiter.release(System.nanoTime() - start, inFlight,
+                        signal == SignalType.ON_COMPLETE && !serverError(exchange.getResponse())));
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        reads.bindTo(registry);
+        writes.bindTo(registry);
+        streams.bindTo(registry);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * The limit {@code request} counts against, or null when it is not limited.
+     */
+    private Route route(final ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.equals(PREFIX) && !path.startsWith(PREFIX + "/") || excludedPaths.contains(path)) {
+            return null;
+        }
+        HttpMethod method = request.getMethod();
+        if (method == HttpMethod.GET && path.equals(PREFIX) && streamed(request)) {
+            return streams;
+        }
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.POST && path.equals(MGET)) {
+            return reads;
+        }
+        return writes;
+    }
+
+    private static boolean streamed(final ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(type -> type.equalsTypeAndSubtype(APPLICATION_STREAM_JSON));
+    }
+
+    private static boolean serverError(final ServerHttpResponse response) {
+        return response.getStatusCode() != null && response.getStatusCode().is5xxServerError();
+    }
+
+    private static final class Route {
+        private final String name;
+        private final ConcurrencyLimiter limiter;
+        private final LongAdder rejected = new LongAdder();
+
+        private Route(final String name, final ConcurrencyLimiter limiter) {
+            this.name = name;
+            this.limiter = limiter;
+        }
+
+        private void bindTo(final MeterRegistry registry) {
+            Gauge.builder("cars.admission.limit", limiter, ConcurrencyLimiter::getLimit)
+                    .description("Concurrent requests currently allowed")
+                    .tag("route", name)
+                    .register(registry);
+            Gauge.builder("cars.admission.in-flight", limiter, ConcurrencyLimiter::getInFlight)
+                    .description("Requests being served")
+                    .tag("route", name)
+                    .register(registry);
+            FunctionCounter.builder("cars.admission.rejected", rejected, LongAdder::sum)
+                    .description("Requests rejected over the limit")
+                    .tag("route", name)
+                    .register(registry);
+        }
+    }
+}
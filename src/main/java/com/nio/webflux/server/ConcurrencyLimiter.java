@@ -0,0 +1,94 @@
+package com.nio.webflux.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps requests in flight. A fixed limiter never moves; an adaptive one follows the gradient of Netflix's
+ * Gradient2 limit: while latency stays within {@code tolerance} of its long-term average the limit grows by
+ * about its square root, as latency rises above it the limit shrinks towards half, so queueing stays out of
+ * the server instead of adding to every response time.
+ */
+public class ConcurrencyLimiter {
+
+    private static final int LONG_WINDOW = 600;
+
+    private final int min;
+    private final int max;
+    private final boolean adaptive;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+
+    private ConcurrencyLimiter(final int initial, final int min, final int max, final boolean adaptive,
+                               final double tolerance, final double smoothing) {
+        this.min = min;
+        this.max = max;
+        this.adaptive = adaptive;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.estimatedLimit = initial;
+        this.limit = initial;
+    }
+
+    public static ConcurrencyLimiter fixed(final int limit) {
+        return new ConcurrencyLimiter(limit, limit, limit, false, 1, 0);
+    }
+
+    public static ConcurrencyLimiter gradient(final int initial, final int min, final int max,
+                                              final double tolerance, final double smoothing) {
+        return new ConcurrencyLimiter(initial, min, max, true, tolerance, smoothing);
+    }
+
+    /**
+     * @return the requests in flight including this one, or 0 when over the limit and nothing was acquired
+     */
+    public int tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > limit) {
+            inFlight.decrementAndGet();
+            return 0;
+        }
+        return current;
+    }
+
+    /**
+     * @param rttNanos      how long the request took
+     * @param inFlightAtStart what {@link #tryAcquire()} returned for it
+     * @param sample        whether its latency is representative; failed and cancelled requests are not
+     */
+    public void release(final long rttNanos, final int inFlightAtStart, final boolean sample) {
+        inFlight.decrementAndGet();
+        if (adaptive && sample && rttNanos > 0) {
+            update(rttNanos, inFlightAtStart);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(final double rtt, final int inFlightAtStart) {
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) * 2 / (LONG_WINDOW + 1);
+        if (longRtt / rtt > 2) {
+            // Latency dropped for good: let the average catch up instead of growing the limit for a long time
+            longRtt *= 0.95;
+        }
+        if (inFlightAtStart < estimatedLimit / 2) {
+            // Not using the limit, so this sample says nothing about it
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(min, Math.min(max, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,52 @@
+package com.nio.webflux.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+
+import java.time.Duration;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Closes a connection that has neither read nor written anything for the timeout, unless a response is
+ * still being written: a quiet change feed subscription is not idle, a keep-alive connection between
+ * requests is.
+ */
+class IdleTimeoutHandler extends IdleStateHandler {
+
+    /**
+     * Starts out responding: the handler is added while the first request of the connection is served.
+     */
+    private boolean responding = true;
+
+    IdleTimeoutHandler(final Duration timeout) {
+        super(0, 0, timeout.toMillis(), MILLISECONDS);
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            responding = true;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+        if (msg instanceof LastHttpContent) {
+            responding = false;
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    protected void channelIdle(final ChannelHandlerContext ctx, final IdleStateEvent evt) {
+        if (!responding) {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.nio.webflux.server;
+
+import com.nio.webflux.config.NettyServerProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import reactor.netty.Connection;
+import reactor.netty.NettyPipeline;
+import reactor.netty.channel.BootstrapHandlers;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpServer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies {@link NettyServerProperties} to the reactor-netty server: event loops and transport,
+ * accept backlog, buffer allocation, idle keep-alive connections and the open connection limit.
+ */
+public class NettyServerTuning implements NettyServerCustomizer, MeterBinder {
+
+    private static final String IDLE_TIMEOUT = "carsIdleTimeout";
+
+    private final NettyServerProperties properties;
+    private final LoopResources loops;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    public NettyServerTuning(final NettyServerProperties properties, final LoopResources loops) {
+        this.properties = properties;
+        this.loops = loops;
+    }
+
+    @Override
+    public HttpServer apply(final HttpServer httpServer) {
+        return httpServer.tcpConfiguration(this::tune);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("reactor.netty.connections.rejected", rejectedConnections, LongAdder::sum)
+                .description("Connections closed on accept because cars.netty.max-connections were open")
+                .register(registry);
+    }
+
+    private TcpServer tune(final TcpServer tcpServer) {
+        ByteBufAllocator allocator = properties.isPooledBuffers()
+                ? new PooledByteBufAllocator(properties.isDirectBuffers())
+                : new UnpooledByteBufAllocator(properties.isDirectBuffers());
+        return tcpServer.runOn(loops, properties.isNativeTransport())
+                .selectorOption(ChannelOption.SO_BACKLOG, properties.getBacklog())
+                .selectorOption(ChannelOption.ALLOCATOR, allocator)
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .bootstrap(bootstrap -> BootstrapHandlers.updateConfiguration(bootstrap, "carsConnectionLimit",
+                        (observer, channel) -> onAccept(channel)))
+                .doOnConnection(this::onRequest);
+    }
+
+    private void onAccept(final Channel channel) {
+        int open = openConnections.incrementAndGet();
+        channel.closeFuture().addListener(closed -> openConnections.decrementAndGet());
+        if (properties.getMaxConnections() > 0 && open > properties.getMaxConnections()) {
+            rejectedConnections.increment();
+            channel.close();
+        }
+    }
+
+    /**
+     * reactor-netty 0.8 calls this for every request, after the HTTP/1.1 codec is in the pipeline. The idle
+     * handler goes straight into the pipeline: handlers added through the connection are removed when the
+     * request completes. HTTP/2 requests arrive on stream channels without a traffic handler and are left
+     * alone.
+     */
+    private void onRequest(final Connection connection) {
+        ChannelPipeline pipeline = connection.channel().pipeline();
+        if (!properties.getIdleTimeout().isZero() && pipeline.get(IDLE_TIMEOUT) == null
+                && pipeline.get(NettyPipeline.HttpTrafficHandler) != null) {
+            pipeline.addBefore(NettyPipeline.HttpTrafficHandler, IDLE_TIMEOUT, new IdleTimeoutHandler(properties.getIdleTimeout()));
+        }
+    }
+}
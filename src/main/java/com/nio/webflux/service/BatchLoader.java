@@ -0,0 +1,98 @@
+package com.nio.webflux.service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * DataLoader-style batching: keys requested within {@code window} of the first one, up to {@code maxSize}
+ * of them, are loaded with a single call and the results are fanned back out to the waiting callers.
+ * Keys missing from the loaded map complete empty; a failed load fails every caller of its batch.
+ * At most {@code concurrency} loads run at once. Further batches wait in an unbounded buffer, which keeps
+ * requesting from {@code bufferTimeout}: a window closing without demand would fail the loader for good.
+ * Callers that cancel before their batch is dispatched are left out of it.
+ */
+public class BatchLoader<K, V> implements Disposable {
+
+    private final UnicastProcessor<Pending<K, V>> queue = UnicastProcessor.create();
+    private final FluxSink<Pending<K, V>> pending = queue.sink();
+    private final Function<Set<K>, Mono<Map<K, V>>> loadAll;
+    private final Disposable batches;
+
+    public BatchLoader(final int maxSize, final Duration window, final int concurrency,
+                       final Function<Set<K>, Mono<Map<K, V>>> loadAll) {
+        this.loadAll = loadAll;
+        this.batches = queue.bufferTimeout(maxSize, window)
+                .onBackpressureBuffer()
+                .flatMap(this::dispatch, concurrency)
+                .subscribe();
+    }
+
+    public Mono<V> load(final K key) {
+        return Mono.create(sink -> {
+            Pending<K, V> request = new Pending<>(key, sink);
+            sink.onCancel(() -> request.cancelled = true);
+            pending.next(request);
+        });
+    }
+
+    @Override
+    public void dispose() {
+        batches.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return batches.isDisposed();
+    }
+
+    private Mono<Void> dispatch(final List<Pending<K, V>> requested) {
+        List<Pending<K, V>> batch = requested.stream()
+                .filter(request -> !request.cancelled)
+                .collect(toList());
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<K> keys = batch.stream()
+                .map(request -> request.key)
+                .collect(toCollection(LinkedHashSet::new));
+        return Mono.defer(() -> loadAll.apply(keys))
+                .defaultIfEmpty(emptyMap())
+                .doOnNext(loaded -> batch.forEach(request -> request.complete(loaded.get(request.key))))
+                .doOnError(e -> batch.forEach(request -> request.sink.error(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private static final class Pending<K, V> {
+        private final K key;
+        private final MonoSink<V> sink;
+        private volatile boolean cancelled;
+
+        private Pending(final K key, final MonoSink<V> sink) {
+            this.key = key;
+            this.sink = sink;
+        }
+
+        private void complete(final V value) {
+            if (value == null) {
+                sink.success();
+            } else {
+                sink.success(value);
+            }
+        }
+    }
+}
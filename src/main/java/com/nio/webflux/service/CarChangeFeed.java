@@ -0,0 +1,57 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.model.CarChange;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static reactor.core.publisher.BufferOverflowStrategy.DROP_OLDEST;
+
+/**
+ * Multicasts car changes to every current subscriber. Publishing never waits on subscribers: each one
+ * gets its own buffer of {@code cars.changes.buffer-size} changes and, when it falls that far behind,
+ * loses the oldest ones. Changes published while nobody listens are discarded.
+ */
+@Component
+public class CarChangeFeed implements MeterBinder {
+
+    private final DirectProcessor<CarChange> processor = DirectProcessor.create();
+    private final FluxSink<CarChange> sink = processor.sink();
+    private final LongAdder dropped = new LongAdder();
+    private final int bufferSize;
+
+    @Autowired
+    public CarChangeFeed(@Value("${cars.changes.buffer-size:256}") final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void publish(final CarChange change) {
+        sink.next(change);
+    }
+
+    public Flux<CarChange> subscribe() {
+        return processor
+                .onBackpressureBuffer(bufferSize, change -> dropped.increment(), DROP_OLDEST)
+                .publishOn(Schedulers.parallel(), 1);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("cars.changes.subscribers", processor, DirectProcessor::downstreamCount)
+                .description("Open change feed subscriptions")
+                .register(registry);
+        FunctionCounter.builder("cars.changes.dropped", dropped, LongAdder::sum)
+                .description("Changes dropped for subscribers that fell behind")
+                .register(registry);
+    }
+}
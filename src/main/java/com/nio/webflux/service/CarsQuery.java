@@ -0,0 +1,28 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.model.Car;
+import lombok.Value;
+
+import java.util.Objects;
+
+/**
+ * Filter of the cars listing, also the key of the query-result cache. A {@code null} field means
+ * "any value".
+ */
+@Value(staticConstructor = "of")
+public class CarsQuery {
+    private String model;
+    private Integer year;
+
+    /**
+     * Whether the result of this query can contain {@code car}. Unknown fields of {@code car} match
+     * anything, so callers that only have a partial car err on the side of invalidating.
+     */
+    public boolean matches(final Car car) {
+        return matches(model, car.getModel()) && matches(year, car.getYear());
+    }
+
+    private static boolean matches(Object filter, Object value) {
+        return filter == null || value == null || Objects.equals(filter, value);
+    }
+}
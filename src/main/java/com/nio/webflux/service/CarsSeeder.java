@@ -0,0 +1,146 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.config.CarsSeedProperties;
+import com.nio.webflux.model.Car;
+import lombok.extern.apachecommons.CommonsLog;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.lang.String.format;
+
+/**
+ * Loads {@code cars.seed.count} synthetic cars into an empty table at startup. Cars are generated from their
+ * index alone, so batches are inserted in parallel with plain JDBC batches and a run is reproducible; models
+ * follow a Zipf distribution of exponent {@code model-skew} and years are uniform.
+ */
+@CommonsLog
+public class CarsSeeder implements CommandLineRunner {
+
+    private static final String INSERT = "insert into car (id, model, year) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CarsSeedProperties properties;
+    private final int connections;
+    private final double[] modelDistribution;
+
+    /**
+     * @param connections size of the connection pool, threads beyond it would only wait for connections
+     */
+    public CarsSeeder(final JdbcTemplate jdbcTemplate, final PlatformTransactionManager transactionManager,
+                      final CarsSeedProperties properties, final int connections) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.connections = connections;
+        this.modelDistribution = cumulativeZipf(properties.getModels(), properties.getModelSkew());
+    }
+
+    @Override
+    public void run(final String... args) {
+        load();
+    }
+
+    /**
+     * @return the number of cars inserted, 0 when the table already had rows
+     */
+    public int load() {
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from car", Integer.class);
+        if (existing != null && existing > 0) {
+            log.info("Not seeding cars, the table already has " + existing + " rows");
+            return 0;
+        }
+
+        int count = properties.getCount();
+        int threads = Math.min(connections,
+                properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("cars-seed-"));
+        long start = System.nanoTime();
+        try {
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < count; from += properties.getBatchSize()) {
+                int first = from;
+                int last = Math.min(from + properties.getBatchSize(), count);
+                batches.add(CompletableFuture.runAsync(() -> insert(first, last), executor));
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Seeding cars failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(format("Seeded %d cars in %.2f s with %d threads (%.0f rows/s)", count, seconds, threads, count / seconds));
+        return count;
+    }
+
+    Car car(final int index) {
+        int years = properties.getLastYear() - properties.getFirstYear() + 1;
+        return Car.builder()
+                .id(format("%s%07d", properties.getIdPrefix(), index))
+                .model("model" + model(uniform(index, 1)))
+                .year(properties.getFirstYear() + (int) (uniform(index, 2) * years))
+                .build();
+    }
+
+    private void insert(final int from, final int to) {
+        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(final PreparedStatement statement, final int i) throws SQLException {
+                Car car = car(from + i);
+                statement.setString(1, car.getId());
+                statement.setString(2, car.getModel());
+                statement.setInt(3, car.getYear());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return to - from;
+            }
+        }));
+    }
+
+    private int model(final double uniform) {
+        int position = Arrays.binarySearch(modelDistribution, uniform);
+        return Math.min(position >= 0 ? position + 1 : -position - 1, modelDistribution.length - 1);
+    }
+
+    /**
+     * SplitMix64 of the seed, index and stream, scaled to [0, 1).
+     */
+    private double uniform(final int index, final int stream) {
+        long z = properties.getRandomSeed() + index * 0x9E3779B97F4A7C15L + stream * 0xD1B54A32D192ED03L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    private static double[] cumulativeZipf(final int models, final double skew) {
+        double[] cumulative = new double[models];
+        double total = 0;
+        for (int rank = 0; rank < models; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < models; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+}
@@ -1,73 +1,286 @@
 package com.nio.webflux.service;
 
+import com.nio.webflux.cache.LocalCache;
 import com.nio.webflux.exception.CarExistException;
 import com.nio.webflux.exception.CarNotExistException;
+import com.nio.webflux.model.BulkResult;
 import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
 import com.nio.webflux.repository.CarsRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static com.nio.webflux.model.BulkResult.Status.*;
+import static java.util.Collections.unmodifiableList;
+import static java.util.function.Function.identity;
 import static java.util.Optional.of;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
 @Service
 public class CarsService {
 
+    private static final String TIMER = "cars.service";
+
     @Autowired
     private CarsRepository carsRepository;
 
+    @Autowired
+    private CarChangeFeed carChanges;
+
+    @Autowired
+    private LocalCache<String, Car> carsByIdCache;
+
+    @Autowired
+    private LocalCache<CarsQuery, List<Car>> carsQueryCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Timed(value = TIMER, histogram = true)
     public List<Car> findAll() {
         return carsRepository.findAll();
     }
 
+    public Stream<Car> streamAll() {
+        return carsRepository.streamAll();
+    }
+
+    @Timed(value = TIMER, histogram = true)
     public List<Car> findByModel(final String model) {
-        return carsRepository.findByModel(model);
+        return find(CarsQuery.of(model, null));
     }
 
+    @Timed(value = TIMER, histogram = true)
     public List<Car> findByYear(final Integer year) {
-        return carsRepository.findByYear(year);
+        return find(CarsQuery.of(null, year));
     }
 
+    @Timed(value = TIMER, histogram = true)
     public List<Car> findByModelAndYear(String model, Integer year) {
-        return carsRepository.findByModelAndYear(model, year);
+        return find(CarsQuery.of(model, year));
+    }
+
+    private List<Car> find(final CarsQuery query) {
+        return carsQueryCache.getIfPresent(query)
+                .orElseGet(() -> load(query));
+    }
+
+    private List<Car> load(final CarsQuery query) {
+        long generation = carsQueryCache.generation();
+        List<Car> found;
+        if (query.getModel() != null && query.getYear() != null) {
+            found = carsRepository.findByModelAndYear(query.getModel(), query.getYear());
+        } else if (query.getYear() != null) {
+            found = carsRepository.findByYear(query.getYear());
+        } else {
+            found = carsRepository.findByModel(query.getModel());
+        }
+        List<Car> cars = unmodifiableList(found);
+        carsQueryCache.putIfUnchanged(query, cars, generation);
+        return cars;
+    }
+
+    @Timed(value = TIMER, histogram = true)
+    public CarsPage findPage(final String model, final Integer year, final String after, final int size) {
+        String afterId = PageTokens.afterId(after);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Car> fetched;
+        if (model == null && year == null) {
+            fetched = carsRepository.findByIdGreaterThanOrderById(afterId, limit);
+        } else if (model != null && year != null) {
+            fetched = carsRepository.findByModelAndYearAndIdGreaterThanOrderById(model, year, afterId, limit);
+        } else if (year != null) {
+            fetched = carsRepository.findByYearAndIdGreaterThanOrderById(year, afterId, limit);
+        } else {
+            fetched = carsRepository.findByModelAndIdGreaterThanOrderById(model, afterId, limit);
+        }
+        return PageTokens.page(fetched, size);
     }
 
+    @Timed(value = TIMER, histogram = true)
     public Optional<Car> findById(final String id) {
-        return carsRepository.findById(id);
+        return findCachedById(id)
+                .or(() -> loadById(id));
     }
 
+    /**
+     * Cache-only lookup, cheap enough to run on an event loop thread.
+     */
+    public Optional<Car> findCachedById(final String id) {
+        return carsByIdCache.getIfPresent(id);
+    }
+
+    /**
+     * Database lookup that refreshes the cache, for callers that already missed {@link #findCachedById(String)}.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public Optional<Car> loadById(final String id) {
+        long generation = carsByIdCache.generation();
+        Optional<Car> found = carsRepository.findById(id);
+        found.ifPresent(car -> carsByIdCache.putIfUnchanged(id, car, generation));
+        return found;
+    }
+
+    /**
+     * Like {@link #loadById(String)} for many ids with one {@code findAllById}, keyed by id.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public Map<String, Car> loadAllById(final Collection<String> ids) {
+        long generation = carsByIdCache.generation();
+        Map<String, Car> found = carsRepository.findAllById(ids).stream()
+                .collect(toMap(Car::getId, identity()));
+        found.forEach((id, car) -> carsByIdCache.putIfUnchanged(id, car, generation));
+        return found;
+    }
+
+    /**
+     * One result per id, in the order of {@code ids}: cached cars first, the rest with a single
+     * {@link #loadAllById(Collection)}.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public List<LookupResult> findAllById(final List<String> ids) {
+        Map<String, Car> found = new HashMap<>();
+        List<String> missed = new ArrayList<>();
+        new LinkedHashSet<>(ids).forEach(id -> findCachedById(id)
+                .ifPresentOrElse(car -> found.put(id, car), () -> missed.add(id)));
+        if (!missed.isEmpty()) {
+            found.putAll(loadAllById(missed));
+        }
+        return ids.stream()
+                .map(id -> LookupResult.of(id, found.get(id)))
+                .collect(toList());
+    }
+
+    @Timed(value = TIMER, histogram = true)
     public Car create(final Car car) {
-        return of(car)
-                .map(Car::getId)
-                .map(carsRepository::findById)
-                .filter(this::isNotPresent)
-                .map(empty -> carsRepository.save(car))
-                .orElseThrow(() -> new CarExistException("Car with id " + car.getId() + " already exists"));
+        try {
+            carsRepository.insert(car);
+        } catch (DataIntegrityViolationException e) {
+            throw new CarExistException("Car with id " + car.getId() + " already exists");
+        }
+        carsByIdCache.invalidate(car.getId());
+        return publish(CarChange.Type.CREATED, invalidateQueries(car));
+    }
 
+    /**
+     * Creates (or with {@code upsert} replaces) a chunk of cars in one transaction: a single
+     * {@code findAllById} finds the existing ones and the new ones are inserted in JDBC batches.
+     * Results are in the order of {@code cars}.
+     */
+    @Timed(value = TIMER, histogram = true)
+    public List<BulkResult> createAll(final List<Car> cars, final boolean upsert) {
+        BulkWrite write = transactionTemplate.execute(status -> writeAll(cars, upsert));
+        write.getWritten().forEach(car -> carsByIdCache.invalidate(car.getId()));
+        carsQueryCache.invalidateIf(query -> write.getWritten().stream().anyMatch(query::matches)
+                || write.getPrevious().stream().anyMatch(query::matches));
+        write.getChanges().forEach(carChanges::publish);
+        return write.getResults();
     }
 
-    private boolean isNotPresent(Optional<Car> car) {
-        return !car.isPresent();
+    private BulkWrite writeAll(final List<Car> cars, final boolean upsert) {
+        List<String> ids = cars.stream()
+                .map(Car::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(toList());
+        Map<String, Car> current = carsRepository.findAllById(ids).stream()
+                .collect(toMap(Car::getId, identity()));
+        BulkWrite write = new BulkWrite();
+        List<Car> created = new ArrayList<>();
+        for (Car car : cars) {
+            Car existing = current.get(car.getId());
+            if (car.getId() == null) {
+                write.add(car, INVALID);
+            } else if (existing == null) {
+                created.add(car);
+                current.put(car.getId(), car);
+                write.add(car, CREATED);
+            } else if (upsert) {
+                write.getPrevious().add(existing.toBuilder().build());
+                existing.setModel(car.getModel());
+                existing.setYear(car.getYear());
+                write.add(existing, UPDATED);
+            } else {
+                write.add(car, EXISTS);
+            }
+        }
+        carsRepository.insertAll(created);
+        return write;
     }
 
+    /**
+     * Changes the model of a car with one UPDATE statement and returns the complete row as updated. The car is
+     * dropped from the cache rather than replaced, as concurrent updates may commit in another order than they
+     * reach the cache, and so are cached queries matching the updated car or still listing it under its previous
+     * model.
+     */
+    @Timed(value = TIMER, histogram = true)
     public Car update(final Car car) {
-        return of(car)
-                .map(Car::getId)
-                .flatMap(carsRepository::findById)
-                .map(currentCar -> mergeCarInfo(currentCar, car))
-                .map(carsRepository::save)
-                .orElseThrow(() -> new CarNotExistException("Car with id " + car.getId() + " not exist"));
+        Optional<Car> updatedCar = carsRepository.updateModel(car.getId(), car.getModel());
+        if (updatedCar.isEmpty()) {
+            carsByIdCache.invalidate(car.getId());
+            throw new CarNotExistException("Car with id " + car.getId() + " not exist");
+        }
+        Car updated = updatedCar.get();
+        carsByIdCache.invalidate(updated.getId());
+        carsQueryCache.invalidateIf((query, cars) -> query.matches(updated)
+                || cars.stream().anyMatch(listed -> listed.getId().equals(updated.getId())));
+        return publish(CarChange.Type.UPDATED, updated);
+    }
+
+    private Car publish(CarChange.Type type, Car car) {
+        carChanges.publish(new CarChange(type, car));
+        return car;
     }
 
-    private Car mergeCarInfo(Car currentCar, Car car) {
-        return currentCar.toBuilder().model(car.getModel()).build();
+    private Car invalidateQueries(Car car) {
+        carsQueryCache.invalidateIf(query -> query.matches(car));
+        return car;
     }
 
+    @Timed(value = TIMER, histogram = true)
     public void delete(final Car car) {
         of(car)
                 .map(Car::getId)
-                .ifPresent(carsRepository::deleteById);
+                .ifPresent(id -> {
+                    carsRepository.deleteById(id);
+                    carsByIdCache.invalidate(id);
+                    invalidateQueries(car);
+                    publish(CarChange.Type.DELETED, car);
+                });
+    }
+
+    @Getter
+    private static class BulkWrite {
+        private final List<BulkResult> results = new ArrayList<>();
+        private final List<Car> written = new ArrayList<>();
+        private final List<Car> previous = new ArrayList<>();
+        private final List<CarChange> changes = new ArrayList<>();
+
+        private void add(Car car, BulkResult.Status status) {
+            results.add(new BulkResult(car.getId(), status));
+            if (status == CREATED || status == UPDATED) {
+                written.add(car);
+                changes.add(new CarChange(status == CREATED ? CarChange.Type.CREATED : CarChange.Type.UPDATED, car));
+            }
+        }
     }
 }
@@ -0,0 +1,187 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * Bounds how long a blocking repository call waits for the database: first for a thread of the scheduler
+ * it is offloaded to, then for a pooled connection (the pool's own timeout). Calls over budget, rejected by a
+ * full scheduler queue or timed out by the pool fail with {@link DatabaseBusyException}, answered with 503, so
+ * overload turns into quick rejections instead of queueing latency. A call still queued at the deadline fails
+ * right then and is cancelled, which takes it out of the queue when the executor supports it.
+ * <p>
+ * Streams hold a connection until they are consumed, so at most {@code maxStreams} are open at once.
+ */
+public class DatabaseWaitBudget implements MeterBinder {
+
+    private static final String REJECTED = "cars.db.rejected";
+
+    private static final int QUEUED = 0;
+    private static final int STARTED = 1;
+    private static final int TIMED_OUT = 2;
+
+    private final Duration maxWait;
+
+    private final int maxStreams;
+
+    private final Semaphore streams;
+
+    private Timer wait;
+    private Counter queueFull;
+    private Counter overBudget;
+    private Counter connectionTimeout;
+    private Counter streamsFull;
+
+    public DatabaseWaitBudget(final Duration maxWait, final int maxStreams) {
+        this.maxWait = maxWait;
+        this.maxStreams = maxStreams;
+        this.streams = new Semaphore(maxStreams);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        wait = Timer.builder("cars.db.wait")
+                .description("Time repository calls waited for a database thread")
+                .publishPercentileHistogram()
+                .register(registry);
+        queueFull = rejected(registry, "queue-full");
+        overBudget = rejected(registry, "max-wait");
+        connectionTimeout = rejected(registry, "connection-timeout");
+        streamsFull = rejected(registry, "streams-full");
+    }
+
+    /**
+     * {@code call} run on {@code scheduler}, failing with {@link DatabaseBusyException} when it cannot get to
+     * the database within the budget.
+     */
+    public <T> Mono<T> call(final Callable<T> call, final Scheduler scheduler) {
+        return Mono.defer(() -> {
+            Wait queued = new Wait();
+            return Mono.fromCallable(() -> queued.started() ? call.call() : null)
+                    .subscribeOn(scheduler)
+                    .timeout(queued.deadline(), Mono.defer(() -> Mono.error(queued.expired())));
+        }).onErrorMap(this::overload, this::busy);
+    }
+
+    /**
+     * The stream opened by {@code open}, read on {@code scheduler} as it is requested and closed on completion
+     * or cancel. Opening it is bounded like {@link #call}, and fails with {@link DatabaseBusyException} while
+     * {@code maxStreams} are open.
+     */
+    public <T> Flux<T> stream(final Supplier<Stream<T>> open, final Scheduler scheduler) {
+        return Flux.defer(() -> {
+            if (!streams.tryAcquire()) {
+                increment(streamsFull);
+                return Flux.<T>error(new DatabaseBusyException(format("All %d database streams are open", maxStreams)));
+            }
+            Wait queued = new Wait();
+            return Flux.fromStream(() -> queued.started() ? open.get() : Stream.<T>empty())
+                    .subscribeOn(scheduler)
+                    .timeout(queued.deadline(), item -> Mono.never(), Flux.defer(() -> Flux.error(queued.expired())))
+                    .doFinally(signal -> streams.release());
+        }).onErrorMap(this::overload, this::busy);
+    }
+
+    /**
+     * Time spent queued by a single call, which either starts or times out.
+     */
+    private final class Wait {
+
+        private final long queued = System.nanoTime();
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        /**
+         * False when the deadline was already signalled; the caller has been answered and nothing is run.
+         */
+        boolean started() {
+            if (!state.compareAndSet(QUEUED, STARTED)) {
+                return false;
+            }
+            long waited = record();
+            if (waited > maxWait.toNanos()) {
+                increment(overBudget);
+                throw overBudget(waited);
+            }
+            return true;
+        }
+
+        /**
+         * Signals at the deadline only if the call has not started by then, so a running call is never cut.
+         */
+        Mono<Long> deadline() {
+            return Mono.delay(maxWait)
+                    .flatMap(tick -> state.compareAndSet(QUEUED, TIMED_OUT) ? Mono.just(tick) : Mono.never());
+        }
+
+        DatabaseBusyException expired() {
+            increment(overBudget);
+            return overBudget(record());
+        }
+
+        private long record() {
+            long waited = System.nanoTime() - queued;
+            if (wait != null) {
+                wait.record(waited, TimeUnit.NANOSECONDS);
+            }
+            return waited;
+        }
+
+        private DatabaseBusyException overBudget(final long waited) {
+            return new DatabaseBusyException(format("Waited %d ms for a database thread", TimeUnit.NANOSECONDS.toMillis(waited)));
+        }
+    }
+
+    private boolean overload(final Throwable error) {
+        return error instanceof RejectedExecutionException || connectionTimeout(error) != null;
+    }
+
+    private Throwable busy(final Throwable error) {
+        if (error instanceof RejectedExecutionException) {
+            increment(queueFull);
+            return new DatabaseBusyException("Database scheduler queue is full", error);
+        }
+        increment(connectionTimeout);
+        return new DatabaseBusyException(connectionTimeout(error).getMessage(), error);
+    }
+
+    private static SQLTransientConnectionException connectionTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return (SQLTransientConnectionException) cause;
+            }
+        }
+        return null;
+    }
+
+    private static Counter rejected(final MeterRegistry registry, final String reason) {
+        return Counter.builder(REJECTED)
+                .description("Repository calls failed with 503 before reaching the database")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static void increment(final Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.model.BulkResult;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
+import lombok.extern.apachecommons.CommonsLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static reactor.core.publisher.Mono.defer;
+
+/**
+ * Non-blocking facade over {@link CarsService}: every repository call is subscribed on the
+ * {@code carsScheduler} so reactor-netty event loop threads never wait on the database, within the
+ * {@link DatabaseWaitBudget}. Streams are read on the {@code carsStreamScheduler} instead. Cache misses
+ * of findById go through {@code carsByIdLoader}, when configured, to be served by batched lookups.
+ */
+@Service
+@Profile("!r2dbc")
+@CommonsLog
+public class OffloadedCarsService implements ReactiveCarsService {
+
+    @Autowired
+    private CarsService carsService;
+
+    @Autowired
+    private CarChangeFeed carChanges;
+
+    @Autowired
+    @Qualifier("carsScheduler")
+    private Scheduler carsScheduler;
+
+    @Autowired
+    @Qualifier("carsStreamScheduler")
+    private Scheduler carsStreamScheduler;
+
+    @Autowired
+    private DatabaseWaitBudget databaseWaitBudget;
+
+    @Value("${cars.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Autowired(required = false)
+    private BatchLoader<String, Car> carsByIdLoader;
+
+    private final SingleFlight<String, Car> idLookups = new SingleFlight<>();
+
+    @Override
+    public Flux<Car> findAll() {
+        return many(carsService::findAll);
+    }
+
+    @Override
+    public Flux<Car> streamAll() {
+        return databaseWaitBudget.stream(carsService::streamAll, carsStreamScheduler);
+    }
+
+    @Override
+    public Flux<Car> findByModel(final String model) {
+        return many(() -> carsService.findByModel(model));
+    }
+
+    @Override
+    public Flux<Car> findByYear(final Integer year) {
+        return many(() -> carsService.findByYear(year));
+    }
+
+    @Override
+    public Flux<Car> findByModelAndYear(final String model, final Integer year) {
+        return many(() -> carsService.findByModelAndYear(model, year));
+    }
+
+    @Override
+    public Mono<CarsPage> findPage(final String model, final Integer year, final String after, final int size) {
+        return one(() -> carsService.findPage(model, year, after, size));
+    }
+
+    @Override
+    public Mono<Car> findById(final String id) {
+        return defer(() -> carsService.findCachedById(id)
+                .map(Mono::just)
+                .orElseGet(() -> idLookups.get(id, this::loadById)));
+    }
+
+    @Override
+    public Flux<LookupResult> findAllById(final Flux<String> ids) {
+        return ids.buffer(bulkChunkSize)
+                .concatMap(chunk -> one(() -> carsService.findAllById(chunk)))
+                .flatMapIterable(results -> results);
+    }
+
+    @Override
+    public Mono<Car> create(final Car car) {
+        return one(() -> carsService.create(car));
+    }
+
+    /**
+     * A chunk that fails as a whole (its transaction rolled back, or it was rejected by the
+     * {@link DatabaseWaitBudget}) reports every car in it as {@code FAILED} and the next chunk goes on.
+     */
+    @Override
+    public Flux<BulkResult> createAll(final Flux<Car> cars, final boolean upsert) {
+        return cars.buffer(bulkChunkSize)
+                .concatMap(chunk -> one(() -> carsService.createAll(chunk, upsert))
+                        .flatMapIterable(results -> results)
+                        .onErrorResume(error -> failed(chunk, error)));
+    }
+
+    @Override
+    public Mono<Car> update(final Car car) {
+        return one(() -> carsService.update(car));
+    }
+
+    @Override
+    public Mono<Void> delete(final Car car) {
+        return one(() -> {
+            carsService.delete(car);
+            return null;
+        }).then();
+    }
+
+    @Override
+    public Flux<CarChange> changes() {
+        return carChanges.subscribe();
+    }
+
+    private Flux<BulkResult> failed(final List<Car> chunk, final Throwable error) {
+        log.warn("Bulk chunk of " + chunk.size() + " cars failed", error);
+        return Flux.fromIterable(chunk)
+                .map(car -> BulkResult.failed(car, error));
+    }
+
+    private Mono<Car> loadById(final String id) {
+        if (carsByIdLoader != null) {
+            return carsByIdLoader.load(id);
+        }
+        return one(() -> carsService.loadById(id).orElse(null));
+    }
+
+    private <T> Mono<T> one(Callable<T> call) {
+        return databaseWaitBudget.call(call, carsScheduler);
+    }
+
+    private Flux<Car> many(Callable<List<Car>> call) {
+        return one(call)
+                .flatMapIterable(cars -> cars);
+    }
+}
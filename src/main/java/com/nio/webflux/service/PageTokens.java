@@ -0,0 +1,46 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.exception.InvalidPageTokenException;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarsPage;
+
+import java.util.Base64;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keyset pagination on {@link Car#getId()}: the continuation token is the last id of the page,
+ * so every page is an index range scan no matter how deep it is.
+ */
+final class PageTokens {
+
+    static final String FIRST = "";
+
+    private PageTokens() {
+    }
+
+    static String afterId(final String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageTokenException("Invalid page token " + token);
+        }
+    }
+
+    /**
+     * Builds the page from a result fetched with one row more than {@code size}, which tells whether
+     * there is a next page without a count query.
+     */
+    static CarsPage page(final List<Car> fetched, final int size) {
+        if (fetched.size() <= size) {
+            return new CarsPage(fetched, null);
+        }
+        List<Car> cars = fetched.subList(0, size);
+        String lastId = cars.get(size - 1).getId();
+        return new CarsPage(cars, Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(UTF_8)));
+    }
+}
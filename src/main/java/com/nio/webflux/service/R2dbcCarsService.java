@@ -0,0 +1,175 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.exception.CarExistException;
+import com.nio.webflux.exception.CarNotExistException;
+import com.nio.webflux.model.BulkResult;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
+import com.nio.webflux.repository.R2dbcCarsRepository;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.nio.webflux.model.BulkResult.Status.*;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static reactor.core.publisher.Mono.defer;
+import static reactor.core.publisher.Mono.error;
+
+/**
+ * {@link ReactiveCarsService} backed by {@link R2dbcCarsRepository}: no thread ever blocks on the
+ * database, so there is no scheduler to size.
+ */
+@Service
+@Profile("r2dbc")
+public class R2dbcCarsService implements ReactiveCarsService {
+
+    @Autowired
+    private R2dbcCarsRepository carsRepository;
+
+    @Autowired
+    private CarChangeFeed carChanges;
+
+    @Value("${cars.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    private final SingleFlight<String, Car> idLookups = new SingleFlight<>();
+
+    @Override
+    public Flux<Car> findAll() {
+        return carsRepository.findAll();
+    }
+
+    @Override
+    public Flux<Car> streamAll() {
+        return carsRepository.findAll();
+    }
+
+    @Override
+    public Flux<Car> findByModel(final String model) {
+        return carsRepository.findByModel(model);
+    }
+
+    @Override
+    public Flux<Car> findByYear(final Integer year) {
+        return carsRepository.findByYear(year);
+    }
+
+    @Override
+    public Flux<Car> findByModelAndYear(final String model, final Integer year) {
+        return carsRepository.findByModelAndYear(model, year);
+    }
+
+    @Override
+    public Mono<CarsPage> findPage(final String model, final Integer year, final String after, final int size) {
+        return defer(() -> carsRepository.findPage(model, year, PageTokens.afterId(after), size + 1)
+                .collectList()
+                .map(fetched -> PageTokens.page(fetched, size)));
+    }
+
+    @Override
+    public Mono<Car> findById(final String id) {
+        return idLookups.get(id, carsRepository::findById);
+    }
+
+    @Override
+    public Flux<LookupResult> findAllById(final Flux<String> ids) {
+        return ids.buffer(bulkChunkSize)
+                .concatMap(chunk -> carsRepository.findAllById(new LinkedHashSet<>(chunk))
+                        .collectMap(Car::getId)
+                        .flatMapIterable(found -> chunk.stream()
+                                .map(id -> LookupResult.of(id, found.get(id)))
+                                .collect(toList())));
+    }
+
+    @Override
+    public Mono<Car> create(final Car car) {
+        return carsRepository.insert(car)
+                .onErrorMap(R2dbcDataIntegrityViolationException.class,
+                        e -> new CarExistException("Car with id " + car.getId() + " already exists"))
+                .doOnNext(created -> publish(CarChange.Type.CREATED, created));
+    }
+
+    /**
+     * Like {@link CarsService#createAll}: per chunk one {@code findAllById} finds the existing cars, then the
+     * new ones are inserted and, with {@code upsert}, the existing ones replaced in one transaction. A chunk
+     * that fails reports every car in it as {@code FAILED} and the next chunk goes on.
+     */
+    @Override
+    public Flux<BulkResult> createAll(final Flux<Car> cars, final boolean upsert) {
+        return cars.buffer(bulkChunkSize)
+                .concatMap(chunk -> writeAll(chunk, upsert)
+                        .onErrorResume(error -> Flux.fromIterable(chunk).map(car -> BulkResult.failed(car, error))));
+    }
+
+    private Flux<BulkResult> writeAll(final List<Car> cars, final boolean upsert) {
+        List<String> ids = cars.stream()
+                .map(Car::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(toList());
+        return carsRepository.findAllById(ids)
+                .map(Car::getId)
+                .collect(toSet())
+                .flatMapMany(existing -> {
+                    Map<String, Car> inserts = new LinkedHashMap<>();
+                    Map<String, Car> updates = new LinkedHashMap<>();
+                    List<BulkResult> results = new ArrayList<>();
+                    List<CarChange> changes = new ArrayList<>();
+                    for (Car car : cars) {
+                        String id = car.getId();
+                        if (id == null) {
+                            results.add(new BulkResult(null, INVALID));
+                        } else if (!existing.contains(id) && !inserts.containsKey(id)) {
+                            inserts.put(id, car);
+                            results.add(new BulkResult(id, CREATED));
+                            changes.add(new CarChange(CarChange.Type.CREATED, car));
+                        } else if (upsert) {
+                            (inserts.containsKey(id) ? inserts : updates).put(id, car);
+                            results.add(new BulkResult(id, UPDATED));
+                            changes.add(new CarChange(CarChange.Type.UPDATED, car));
+                        } else {
+                            results.add(new BulkResult(id, EXISTS));
+                        }
+                    }
+                    return carsRepository.writeAll(new ArrayList<>(inserts.values()), new ArrayList<>(updates.values()))
+                            .then(Mono.fromRunnable(() -> changes.forEach(carChanges::publish)))
+                            .thenMany(Flux.fromIterable(results));
+                });
+    }
+
+    @Override
+    public Mono<Car> update(final Car car) {
+        return carsRepository.updateModel(car.getId(), car.getModel())
+                .doOnNext(updated -> publish(CarChange.Type.UPDATED, updated))
+                .switchIfEmpty(error(() -> new CarNotExistException("Car with id " + car.getId() + " not exist")));
+    }
+
+    @Override
+    public Mono<Void> delete(final Car car) {
+        return carsRepository.deleteById(car.getId())
+                .then(Mono.fromRunnable(() -> publish(CarChange.Type.DELETED, car)));
+    }
+
+    @Override
+    public Flux<CarChange> changes() {
+        return carChanges.subscribe();
+    }
+
+    private void publish(CarChange.Type type, Car car) {
+        carChanges.publish(new CarChange(type, car));
+    }
+}
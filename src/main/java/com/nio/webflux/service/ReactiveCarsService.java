@@ -0,0 +1,65 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.model.BulkResult;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cars operations as used by the web layer. {@link OffloadedCarsService} runs the JPA path on a
+ * dedicated scheduler; the {@code r2dbc} profile swaps in a fully non-blocking implementation.
+ */
+public interface ReactiveCarsService {
+
+    Flux<Car> findAll();
+
+    /**
+     * Like {@link #findAll()} but emits rows as they are read, honouring downstream demand,
+     * instead of loading the whole table first.
+     */
+    Flux<Car> streamAll();
+
+    Flux<Car> findByModel(String model);
+
+    Flux<Car> findByYear(Integer year);
+
+    Flux<Car> findByModelAndYear(String model, Integer year);
+
+    /**
+     * One page of at most {@code size} cars ordered by id, starting after the {@code after} token
+     * ({@code null} for the first page).
+     */
+    Mono<CarsPage> findPage(String model, Integer year, String after, int size);
+
+    /**
+     * Concurrent lookups of the same id share a single database read.
+     */
+    Mono<Car> findById(String id);
+
+    /**
+     * One result per id, in input order, marking the ids that do not exist. Ids are resolved in chunks
+     * with one query each.
+     */
+    Flux<LookupResult> findAllById(Flux<String> ids);
+
+    Mono<Car> create(Car car);
+
+    /**
+     * Creates the cars, or replaces existing ones when {@code upsert}, in chunks, emitting one result per
+     * car in input order.
+     */
+    Flux<BulkResult> createAll(Flux<Car> cars, boolean upsert);
+
+    Mono<Car> update(Car car);
+
+    Mono<Void> delete(Car car);
+
+    /**
+     * Cars created, updated and deleted from now on, as they happen. Subscribers that fall behind lose
+     * the oldest changes rather than holding back writers.
+     */
+    Flux<CarChange> changes();
+}
@@ -0,0 +1,27 @@
+package com.nio.webflux.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Shares one in-flight lookup per key: callers arriving while a lookup for the same key is running
+ * subscribe to it instead of starting their own, and all of them get its result (or error). The
+ * lookup is forgotten as soon as it terminates, so results are never served from here afterwards.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    Mono<V> get(final K key, final Function<K, Mono<V>> lookup) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> lookup.apply(k)
+                .doFinally(signal -> inFlight.remove(k))
+                .cache()));
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
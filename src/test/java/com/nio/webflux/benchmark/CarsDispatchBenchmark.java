@@ -0,0 +1,184 @@
+package com.nio.webflux.benchmark;
+
+import com.nio.webflux.controller.CarsController;
+import com.nio.webflux.controller.CarsHandler;
+import com.nio.webflux.controller.CarsRouter;
+import com.nio.webflux.model.BulkResult;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
+import com.nio.webflux.service.ReactiveCarsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Full WebFlux dispatch of {@code GET /cars/{id}}, {@code GET /cars} and {@code POST /cars} through the annotated
+ * {@link CarsController} or the {@code functional} profile router, over an in-memory service so only routing,
+ * argument resolution and encoding are measured. Run with {@code -prof gc} for allocations per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CarsDispatchBenchmark {
+
+    private static final List<Car> CARS = IntStream.range(0, 10)
+            .mapToObj(i -> Car.builder().id(String.format("%04dABC", i)).model("model" + i).year(2000 + i).build())
+            .collect(toList());
+
+    private static final String BODY = "{\"id\":\"9999ZZZ\",\"model\":\"model9\",\"year\":2009}";
+
+    @Param({"annotated", "functional"})
+    private String dispatch;
+
+    private AnnotationConfigApplicationContext context;
+
+    private HttpHandler httpHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // No Spring Boot application here to configure logging, and logback's default would log every request
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+        context = new AnnotationConfigApplicationContext();
+        if ("functional".equals(dispatch)) {
+            context.getEnvironment().setActiveProfiles("functional");
+        }
+        context.register(DispatchConfiguration.class);
+        context.refresh();
+        httpHandler = WebHttpHandlerBuilder.applicationContext(context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockServerHttpResponse findById() {
+        return handle(MockServerHttpRequest.get("/cars/0001ABC").build());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse find() {
+        return handle(MockServerHttpRequest.get("/cars?model=model1").accept(APPLICATION_JSON).build());
+    }
+
+    @Benchmark
+    public MockServerHttpResponse createCar() {
+        return handle(MockServerHttpRequest.post("/cars").contentType(APPLICATION_JSON).body(BODY));
+    }
+
+    private MockServerHttpResponse handle(MockServerHttpRequest request) {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        httpHandler.handle(request, response).block();
+        response.getBody().blockLast();
+        return response;
+    }
+
+    /**
+     * Registered explicitly, not a {@code @Configuration}, so the application's component scan of the test
+     * classpath does not pick it up.
+     */
+    @EnableWebFlux
+    @Import({CarsController.class, CarsHandler.class, CarsRouter.class})
+    static class DispatchConfiguration {
+
+        @Bean
+        public ReactiveCarsService carsService() {
+            return new FixedCarsService();
+        }
+    }
+
+    /**
+     * Answers every query from {@link #CARS} without touching a database.
+     */
+    static class FixedCarsService implements ReactiveCarsService {
+
+        @Override
+        public Flux<Car> findAll() {
+            return Flux.fromIterable(CARS);
+        }
+
+        @Override
+        public Flux<Car> streamAll() {
+            return findAll();
+        }
+
+        @Override
+        public Flux<Car> findByModel(String model) {
+            return findAll().filter(car -> car.getModel().equals(model));
+        }
+
+        @Override
+        public Flux<Car> findByYear(Integer year) {
+            return findAll().filter(car -> car.getYear().equals(year));
+        }
+
+        @Override
+        public Flux<Car> findByModelAndYear(String model, Integer year) {
+            return findByModel(model).filter(car -> car.getYear().equals(year));
+        }
+
+        @Override
+        public Mono<CarsPage> findPage(String model, Integer year, String after, int size) {
+            return Mono.just(new CarsPage(CARS, null));
+        }
+
+        @Override
+        public Mono<Car> findById(String id) {
+            return findAll().filter(car -> car.getId().equals(id)).next();
+        }
+
+        @Override
+        public Flux<LookupResult> findAllById(Flux<String> ids) {
+            return ids.flatMapSequential(id -> findById(id).map(car -> LookupResult.of(id, car))
+                    .defaultIfEmpty(LookupResult.of(id, null)));
+        }
+
+        @Override
+        public Mono<Car> create(Car car) {
+            return Mono.just(car);
+        }
+
+        @Override
+        public Flux<BulkResult> createAll(Flux<Car> cars, boolean upsert) {
+            return Flux.empty();
+        }
+
+        @Override
+        public Mono<Car> update(Car car) {
+            return Mono.just(car);
+        }
+
+        @Override
+        public Mono<Void> delete(Car car) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Flux<CarChange> changes() {
+            return Flux.never();
+        }
+    }
+}
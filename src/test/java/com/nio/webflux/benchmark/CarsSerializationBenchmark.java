@@ -0,0 +1,70 @@
+package com.nio.webflux.benchmark;
+
+import com.nio.webflux.model.Car;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON;
+
+/**
+ * Jackson encoding of a {@code Flux<Car>} response body, as a JSON array (GET /cars) and as
+ * application/stream+json (streamed GET /cars). Run with {@code -prof gc} for allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CarsSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int cars;
+
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+
+    private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private List<Car> payload;
+
+    @Setup
+    public void setUp() {
+        payload = IntStream.range(0, cars)
+                .mapToObj(i -> Car.builder().id(String.format("%04dABC", i)).model("model" + i % 50).year(1990 + i % 30).build())
+                .collect(toList());
+    }
+
+    @Benchmark
+    public long encodeJsonArray() {
+        return encode(APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public long encodeStreamJson() {
+        return encode(APPLICATION_STREAM_JSON);
+    }
+
+    private long encode(MimeType mimeType) {
+        return encoder.encode(Flux.fromIterable(payload), bufferFactory, ResolvableType.forClass(Car.class), mimeType, emptyMap())
+                .map(buffer -> {
+                    long bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
@@ -0,0 +1,109 @@
+package com.nio.webflux.benchmark;
+
+import com.nio.webflux.SpringWebfluxNioPerformanceApplication;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.CarsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CarsService against an H2 dataset of {@code dataset} cars seeded by the startup loader, with the local
+ * caches on or off.
+ * Run with {@code -prof gc} to get the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CarsServiceBenchmark {
+
+    private static final int MODELS = 50;
+    private static final int YEARS = 30;
+    private static final String ID_PREFIX = "BENCH";
+
+    @Param({"1000000"})
+    private int dataset;
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private ConfigurableApplicationContext context;
+
+    private CarsService carsService;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int cacheSize = cached ? dataset : 0;
+        context = new SpringApplicationBuilder(SpringWebfluxNioPerformanceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "cars.cache.by-id.max-size=" + cacheSize,
+                        "cars.cache.queries.max-size=" + cacheSize,
+                        "cars.seed.count=" + dataset,
+                        "cars.seed.id-prefix=" + ID_PREFIX,
+                        "cars.seed.models=" + MODELS,
+                        "cars.seed.first-year=" + year(0),
+                        "cars.seed.last-year=" + year(YEARS - 1))
+                .run();
+        carsService = context.getBean(CarsService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Car> findById() {
+        return carsService.findById(id(ThreadLocalRandom.current().nextInt(dataset)));
+    }
+
+    @Benchmark
+    public List<Car> findByModelAndYear() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return carsService.findByModelAndYear(model(random.nextInt(MODELS)), year(random.nextInt(YEARS)));
+    }
+
+    @Benchmark
+    public Car create() {
+        return carsService.create(Car.builder()
+                .id("NEW" + sequence.incrementAndGet())
+                .model(model(0))
+                .year(year(0))
+                .build());
+    }
+
+    @Benchmark
+    public Car update() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return carsService.update(Car.builder()
+                .id(id(random.nextInt(dataset)))
+                .model(model(random.nextInt(MODELS)))
+                .build());
+    }
+
+    private static String id(int index) {
+        return String.format("%s%07d", ID_PREFIX, index);
+    }
+
+    private static String model(int index) {
+        return "model" + index;
+    }
+
+    private static int year(int index) {
+        return 1990 + index;
+    }
+}
@@ -0,0 +1,134 @@
+package com.nio.webflux.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final LocalCache<String, String> cache = new LocalCache<>("test", 2, Duration.ofNanos(100), now::get);
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        //Given
+        cache.put("a", "A");
+
+        //When && Then
+        assertThat(cache.getIfPresent("a")).contains("A");
+        assertThat(cache.getIfPresent("b")).isEmpty();
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictWhenFull() {
+        //Given
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        //When
+        cache.put("c", "C");
+
+        //Then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldExpireAfterTtl() {
+        //Given
+        cache.put("a", "A");
+
+        //When
+        now.addAndGet(100);
+
+        //Then
+        assertThat(cache.getIfPresent("a")).isEmpty();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldInvalidate() {
+        //Given
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        //When
+        cache.invalidate("a");
+        cache.invalidateIf("b"::equals);
+
+        //Then
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void shouldInvalidateByValue() {
+        //Given
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        //When
+        cache.invalidateIf((key, value) -> value.equals("B"));
+
+        //Then
+        assertThat(cache.getIfPresent("a")).contains("A");
+        assertThat(cache.getIfPresent("b")).isEmpty();
+    }
+
+    @Test
+    public void shouldStoreNothingWhenDisabled() {
+        //Given
+        LocalCache<String, String> disabled = new LocalCache<>("disabled", 0, Duration.ofMinutes(1));
+
+        //When
+        disabled.put("a", "A");
+
+        //Then
+        assertThat(disabled.getIfPresent("a")).isEmpty();
+    }
+
+    @Test
+    public void shouldPublishMeters() {
+        //Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.put("a", "A");
+        cache.getIfPresent("a");
+
+        //When && Then
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", "test").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDropLoadedValueWhenWrittenWhileLoading() {
+        //Given
+        long generation = cache.generation();
+        cache.invalidate("a");
+
+        //When
+        cache.putIfUnchanged("a", "stale", generation);
+
+        //Then
+        assertThat(cache.getIfPresent("a")).isEmpty();
+    }
+
+    @Test
+    public void shouldStoreLoadedValueWhenUnchanged() {
+        //Given
+        long generation = cache.generation();
+
+        //When
+        cache.putIfUnchanged("a", "A", generation);
+
+        //Then
+        assertThat(cache.getIfPresent("a")).contains("A");
+    }
+}
@@ -0,0 +1,111 @@
+package com.nio.webflux.controller;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.ReactiveCarsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON;
+
+/**
+ * Compression is applied by the Netty server, so these requests go through a started one. The client does
+ * not decompress, unlike the default WebTestClient connector, so the encoding stays visible.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "cars.seed.count=0")
+public class CarsCompressionIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private ReactiveCarsService carsService;
+
+    private WebTestClient webTestClient;
+
+    @Before
+    public void setUp() {
+        webTestClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+    }
+
+    @Test
+    public void shouldGzipResponsesFromMinResponseSize() throws IOException {
+        //Given
+        when(carsService.findAll()).thenReturn(cars(60));
+
+        //When
+        byte[] body = webTestClient.get()
+                .uri("/cars")
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectBody().returnResult().getResponseBody();
+
+        //Then
+        try (GZIPInputStream unzipped = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String json = new String(unzipped.readAllBytes(), UTF_8);
+            assertThat(json).startsWith("[").contains("\"id\":\"0059ABC\"");
+            assertThat(body.length).isLessThan(json.length());
+        }
+    }
+
+    @Test
+    public void shouldNotGzipResponsesBelowMinResponseSize() {
+        //Given
+        when(carsService.findAll()).thenReturn(cars(1));
+
+        //When && Then
+        webTestClient.get()
+                .uri("/cars")
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBodyList(Car.class).hasSize(1);
+    }
+
+    @Test
+    public void shouldNotGzipStreams() {
+        //Given
+        when(carsService.streamAll()).thenReturn(cars(60));
+
+        //When && Then
+        webTestClient.get()
+                .uri("/cars")
+                .accept(APPLICATION_STREAM_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBodyList(Car.class).hasSize(60);
+    }
+
+    private static Flux<Car> cars(final int count) {
+        return Flux.range(0, count)
+                .map(index -> Car.builder().id(String.format("%04dABC", index)).model("fiesta").year(2000).build());
+    }
+}
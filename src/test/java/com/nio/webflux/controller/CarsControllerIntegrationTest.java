@@ -4,7 +4,7 @@ package com.nio.webflux.controller;
 import com.nio.webflux.exception.CarExistException;
 import com.nio.webflux.exception.CarNotExistException;
 import com.nio.webflux.model.Car;
-import com.nio.webflux.service.CarsService;
+import com.nio.webflux.service.ReactiveCarsService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -12,11 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import static java.util.Arrays.asList;
-import static java.util.Optional.of;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,7 +30,7 @@ public class CarsControllerIntegrationTest {
     private CarsController carsController;
 
     @MockBean
-    private CarsService carsService;
+    private ReactiveCarsService carsService;
 
     @Mock
     private Car car1;
@@ -39,12 +41,11 @@ public class CarsControllerIntegrationTest {
     @Test
     public void shouldFindAll() {
         //Given
-        when(carsService.findAll()).thenReturn(asList(car1, car2));
+        when(carsService.findAll()).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(null, null))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(null, null, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
         verify(carsService).findAll();
     }
@@ -53,12 +54,11 @@ public class CarsControllerIntegrationTest {
     public void shouldFindModel() {
         //Given
         String model = "theModel";
-        when(carsService.findByModel(model)).thenReturn(asList(car1, car2));
+        when(carsService.findByModel(model)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(model, null))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(model, null, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
         verify(carsService).findByModel(model);
     }
@@ -67,12 +67,11 @@ public class CarsControllerIntegrationTest {
     public void shouldFindYear() {
         //Given
         int year = 2000;
-        when(carsService.findByYear(year)).thenReturn(asList(car1, car2));
+        when(carsService.findByYear(year)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(null, year))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(null, year, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
         verify(carsService).findByYear(year);
     }
@@ -82,12 +81,11 @@ public class CarsControllerIntegrationTest {
         //Given
         String model = "theModel";
         int year = 2000;
-        when(carsService.findByModelAndYear(model, year)).thenReturn(asList(car1, car2));
+        when(carsService.findByModelAndYear(model, year)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(model, year))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(model, year, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
         verify(carsService).findByModelAndYear(model, year);
     }
@@ -96,10 +94,10 @@ public class CarsControllerIntegrationTest {
     public void shouldFindById() {
         //Given
         String carId = "theId";
-        when(carsService.findById(carId)).thenReturn(of(car1));
+        when(carsService.findById(carId)).thenReturn(Mono.just(car1));
 
         //When && Then
-        StepVerifier.create(carsController.findById(carId))
+        StepVerifier.create(carsController.findById(carId, get()))
                 .expectNext(car1)
                 .verifyComplete();
         verify(carsService).findById(carId);
@@ -108,7 +106,7 @@ public class CarsControllerIntegrationTest {
     @Test
     public void shouldCreate() {
         //Given
-        when(carsService.create(car1)).thenReturn(car1);
+        when(carsService.create(car1)).thenReturn(Mono.just(car1));
 
         //When && Then
         StepVerifier.create(carsController.createCar(car1))
@@ -121,12 +119,12 @@ public class CarsControllerIntegrationTest {
     @Test
     public void shouldCreateThrowExceptionWhenCarExist() {
         //Given
-        when(carsService.create(car1)).thenThrow(new CarExistException("Car already exist"));
+        when(carsService.create(car1)).thenReturn(Mono.error(new CarExistException("Car already exist")));
 
         //When && Then
-        assertThatThrownBy(() -> carsController.createCar(car1))
-                .isInstanceOf(CarExistException.class)
-                .hasMessage("Car already exist");
+        StepVerifier.create(carsController.createCar(car1))
+                .expectErrorMatches(error -> error instanceof CarExistException && error.getMessage().equals("Car already exist"))
+                .verify();
 
         verify(carsService).create(car1);
     }
@@ -134,7 +132,7 @@ public class CarsControllerIntegrationTest {
     @Test
     public void shouldUpdate() {
         //Given
-        when(carsService.update(car1)).thenReturn(car1);
+        when(carsService.update(car1)).thenReturn(Mono.just(car1));
 
         //When && Then
         StepVerifier.create(carsController.updateCar(car1))
@@ -147,16 +145,17 @@ public class CarsControllerIntegrationTest {
     @Test
     public void shouldUpdateThrowExceptionWhenCarNotFound() {
         //Given
-        when(carsService.update(car1)).thenThrow(new CarNotExistException("Car doesn't exist"));
+        when(carsService.update(car1)).thenReturn(Mono.error(new CarNotExistException("Car doesn't exist")));
 
         //When && Then
-        assertThatThrownBy(() -> carsController.updateCar(car1))
-                .isInstanceOf(CarNotExistException.class)
-                .hasMessage("Car doesn't exist");
+        StepVerifier.create(carsController.updateCar(car1))
+                .expectErrorMatches(error -> error instanceof CarNotExistException && error.getMessage().equals("Car doesn't exist"))
+                .verify();
 
         verify(carsService).update(car1);
     }
 
-
+    private static MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/cars"));
+    }
 }
-
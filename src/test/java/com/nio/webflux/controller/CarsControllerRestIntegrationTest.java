@@ -2,7 +2,8 @@ package com.nio.webflux.controller;
 
 
 import com.nio.webflux.model.Car;
-import com.nio.webflux.service.CarsService;
+import com.nio.webflux.model.LookupResult;
+import com.nio.webflux.service.ReactiveCarsService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,10 +11,17 @@ import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import static java.util.Arrays.asList;
-import static java.util.Optional.empty;
-import static java.util.Optional.of;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.web.reactive.function.BodyInserters.fromObject;
 
@@ -25,14 +33,14 @@ public class CarsControllerRestIntegrationTest {
     private WebTestClient webTestClient;
 
     @MockBean
-    private CarsService carsService;
+    private ReactiveCarsService carsService;
 
     @Test
     public void shouldFindByModelAndYear() {
         //Given
         Car car1 = Car.builder().id("1111ABC").model("fiesta").year(2000).build();
         Car car2 = Car.builder().id("2222ABC").model("fiesta").year(2000).build();
-        when(carsService.findByModelAndYear("fiesta", 2000)).thenReturn(asList(car1, car2));
+        when(carsService.findByModelAndYear("fiesta", 2000)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
         webTestClient.get()
@@ -49,7 +57,7 @@ public class CarsControllerRestIntegrationTest {
         //Given
         Car car1 = Car.builder().id("1111ABC").model("fiesta").year(2000).build();
         Car car2 = Car.builder().id("2222ABC").model("fiesta").year(2000).build();
-        when(carsService.findByModel("fiesta")).thenReturn(asList(car1, car2));
+        when(carsService.findByModel("fiesta")).thenReturn(Flux.just(car1, car2));
 
         //When && Then
         webTestClient.get()
@@ -66,7 +74,7 @@ public class CarsControllerRestIntegrationTest {
         //Given
         Car car1 = Car.builder().id("1111ABC").model("fiesta").year(2000).build();
         Car car2 = Car.builder().id("1111ABC").model("fiesta").year(2000).build();
-        when(carsService.findByYear(2000)).thenReturn(asList(car1, car2));
+        when(carsService.findByYear(2000)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
         webTestClient.get()
@@ -83,7 +91,7 @@ public class CarsControllerRestIntegrationTest {
         //Given
         Car car1 = Car.builder().id("1111ABC").model("fiesta").year(2000).build();
         Car car2 = Car.builder().id("1111ABC").model("fiesta").year(2000).build();
-        when(carsService.findAll()).thenReturn(asList(car1, car2));
+        when(carsService.findAll()).thenReturn(Flux.just(car1, car2));
 
         //When && Then
         webTestClient.get()
@@ -100,7 +108,7 @@ public class CarsControllerRestIntegrationTest {
         //Given
         String carId = "1111ABC";
         Car car = Car.builder().id(carId).year(2000).model("theModel").build();
-        when(carsService.findById(carId)).thenReturn(of(car));
+        when(carsService.findById(carId)).thenReturn(Mono.just(car));
 
         //When && Then
         webTestClient.get()
@@ -115,7 +123,7 @@ public class CarsControllerRestIntegrationTest {
     public void shouldNotFindById() {
         //Given
         String carId = "idNotFound";
-        when(carsService.findById(carId)).thenReturn(empty());
+        when(carsService.findById(carId)).thenReturn(Mono.empty());
 
         //When && Then
         webTestClient.get()
@@ -130,7 +138,7 @@ public class CarsControllerRestIntegrationTest {
     public void shouldUpdate() {
         //Given
         Car car = Car.builder().id("1234ABC").year(2000).model("newModel").build();
-        when(carsService.update(car)).thenReturn(car);
+        when(carsService.update(car)).thenReturn(Mono.just(car));
 
         //When && Then
         webTestClient.put()
@@ -146,7 +154,7 @@ public class CarsControllerRestIntegrationTest {
     public void shouldCreate() {
         //Given
         Car car = Car.builder().id("1111ABC").year(2000).model("model").build();
-        when(carsService.create(car)).thenReturn(car);
+        when(carsService.create(car)).thenReturn(Mono.just(car));
 
         //When && Then
         webTestClient.post()
@@ -157,4 +165,48 @@ public class CarsControllerRestIntegrationTest {
                 .expectBody(Car.class)
                 .isEqualTo(car);
     }
+
+    @Test
+    public void shouldAnswerBadRequestForInvalidYear() {
+        //When && Then
+        webTestClient.get()
+                .uri("/cars?year=abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(carsService, never()).findByYear(any());
+    }
+
+    @Test
+    public void shouldFindByIdsEvenWithSize() {
+        //Given
+        LookupResult found = LookupResult.of("1111ABC", Car.builder().id("1111ABC").year(2000).model("model").build());
+        when(carsService.findAllById(any())).thenReturn(Flux.just(found));
+
+        //When && Then
+        webTestClient.get()
+                .uri("/cars?ids=1111ABC&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(LookupResult.class)
+                .contains(found);
+        verify(carsService, never()).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void shouldAnswerBadRequestForTooManyIds() {
+        //Given
+        List<String> ids = IntStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(toList());
+
+        //When && Then
+        webTestClient.get()
+                .uri("/cars?ids=" + String.join(",", ids))
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.post()
+                .uri("/cars/_mget")
+                .body(fromObject(ids))
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(carsService, never()).findAllById(any());
+    }
 }
@@ -2,21 +2,32 @@ package com.nio.webflux.controller;
 
 import com.nio.webflux.exception.CarExistException;
 import com.nio.webflux.exception.CarNotExistException;
+import com.nio.webflux.exception.TooManyIdsException;
+import com.nio.webflux.model.BulkResult;
 import com.nio.webflux.model.Car;
-import com.nio.webflux.service.CarsService;
-import org.assertj.core.api.Assertions;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.CarsPage;
+import com.nio.webflux.model.LookupResult;
+import com.nio.webflux.service.ReactiveCarsService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import static java.util.Arrays.asList;
-import static java.util.Optional.empty;
-import static java.util.Optional.of;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 
@@ -27,7 +38,7 @@ public class CarsControllerTest {
     private CarsController carsController;
 
     @Mock
-    private CarsService carsService;
+    private ReactiveCarsService carsService;
 
     @Mock
     private Car car1;
@@ -38,12 +49,11 @@ public class CarsControllerTest {
     @Test
     public void shouldFindAll() {
         //Given
-        when(carsService.findAll()).thenReturn(asList(car1, car2));
+        when(carsService.findAll()).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(null, null))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(null, null, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
         verify(carsService).findAll();
     }
@@ -52,12 +62,11 @@ public class CarsControllerTest {
     public void shouldFindByModel() {
         //Given
         String modelToSearch = "modelToSearch";
-        when(carsService.findByModel(modelToSearch)).thenReturn(asList(car1, car2));
+        when(carsService.findByModel(modelToSearch)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(modelToSearch, null))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(modelToSearch, null, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
 
         verify(carsService).findByModel(modelToSearch);
@@ -67,12 +76,11 @@ public class CarsControllerTest {
     public void shouldFindByYear() {
         //Given
         Integer yearToSearch = 2000;
-        when(carsService.findByYear(yearToSearch)).thenReturn(asList(car1, car2));
+        when(carsService.findByYear(yearToSearch)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(null, yearToSearch))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(null, yearToSearch, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
         verify(carsService).findByYear(yearToSearch);
     }
@@ -82,12 +90,11 @@ public class CarsControllerTest {
         //Given
         String modelToSearch = "modelToSearch";
         Integer yearToSearch = 2000;
-        when(carsService.findByModelAndYear(modelToSearch, yearToSearch)).thenReturn(asList(car1, car2));
+        when(carsService.findByModelAndYear(modelToSearch, yearToSearch)).thenReturn(Flux.just(car1, car2));
 
         //When && Then
-        StepVerifier.create(carsController.find(modelToSearch, yearToSearch))
-                .expectNext(car1)
-                .expectNext(car2)
+        StepVerifier.create(carsController.find(modelToSearch, yearToSearch, get()))
+                .expectNext(asList(car1, car2))
                 .verifyComplete();
     }
 
@@ -95,10 +102,10 @@ public class CarsControllerTest {
     public void shouldFindById() {
         //Given
         String carId = "1234ABC";
-        when(carsService.findById(carId)).thenReturn(of(car1));
+        when(carsService.findById(carId)).thenReturn(Mono.just(car1));
 
         //When && Then
-        StepVerifier.create(carsController.findById(carId))
+        StepVerifier.create(carsController.findById(carId, get()))
                 .expectNext(car1)
                 .verifyComplete();
     }
@@ -106,17 +113,17 @@ public class CarsControllerTest {
     @Test
     public void shouldNotFindByIdWhenIdNotExist() {
         //Given
-        when(carsService.findById("notExistentId")).thenReturn(empty());
+        when(carsService.findById("notExistentId")).thenReturn(Mono.empty());
 
         //When && Then
-        StepVerifier.create(carsController.findById("notExistentId"))
+        StepVerifier.create(carsController.findById("notExistentId", get()))
                 .verifyComplete();
     }
 
     @Test
     public void shouldCreate() {
         //Given
-        when(carsService.create(car1)).thenReturn(car1);
+        when(carsService.create(car1)).thenReturn(Mono.just(car1));
 
         //When && Then
         StepVerifier.create(carsController.createCar(car1))
@@ -129,12 +136,12 @@ public class CarsControllerTest {
     @Test
     public void shouldCreateThrowExceptionWhenCarExist() {
         //Given
-        when(carsService.create(car1)).thenThrow(new CarExistException("Car already exist"));
+        when(carsService.create(car1)).thenReturn(Mono.error(new CarExistException("Car already exist")));
 
         //When && Then
-        assertThatThrownBy(() -> carsController.createCar(car1))
-        .isInstanceOf(CarExistException.class)
-        .hasMessage("Car already exist");
+        StepVerifier.create(carsController.createCar(car1))
+                .expectErrorMatches(error -> error instanceof CarExistException && error.getMessage().equals("Car already exist"))
+                .verify();
 
         verify(carsService).create(car1);
     }
@@ -142,7 +149,7 @@ public class CarsControllerTest {
     @Test
     public void shouldUpdate() {
         //Given
-        when(carsService.update(car1)).thenReturn(car1);
+        when(carsService.update(car1)).thenReturn(Mono.just(car1));
 
         //When && Then
         StepVerifier.create(carsController.updateCar(car1))
@@ -155,14 +162,146 @@ public class CarsControllerTest {
     @Test
     public void shouldUpdateThrowExceptionWhenCarNotFound() {
         //Given
-        when(carsService.update(car1)).thenThrow(new CarNotExistException("Car doesn't exist"));
+        when(carsService.update(car1)).thenReturn(Mono.error(new CarNotExistException("Car doesn't exist")));
 
         //When && Then
-        assertThatThrownBy(() -> carsController.updateCar(car1))
-                .isInstanceOf(CarNotExistException.class)
-                .hasMessage("Car doesn't exist");
+        StepVerifier.create(carsController.updateCar(car1))
+                .expectErrorMatches(error -> error instanceof CarNotExistException && error.getMessage().equals("Car doesn't exist"))
+                .verify();
 
         verify(carsService).update(car1);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldStreamAll() {
+        //Given
+        when(carsService.streamAll()).thenReturn(Flux.just(car1, car2));
+
+        //When && Then
+        StepVerifier.create(carsController.stream(null, null))
+                .expectNext(car1)
+                .expectNext(car2)
+                .verifyComplete();
+        verify(carsService).streamAll();
+    }
+
+    @Test
+    public void shouldStreamByModel() {
+        //Given
+        when(carsService.findByModel("modelToSearch")).thenReturn(Flux.just(car1));
+
+        //When && Then
+        StepVerifier.create(carsController.stream("modelToSearch", null))
+                .expectNext(car1)
+                .verifyComplete();
+        verify(carsService).findByModel("modelToSearch");
+    }
+
+    @Test
+    public void shouldFindPageCappingSize() {
+        //Given
+        ReflectionTestUtils.setField(carsController, "maxPageSize", 50);
+        CarsPage page = CarsPage.builder().cars(asList(car1, car2)).next("token").build();
+        when(carsService.findPage("model", 2000, "after", 50)).thenReturn(Mono.just(page));
+
+        //When && Then
+        StepVerifier.create(carsController.findPage("model", 2000, "after", 1000, get()))
+                .expectNext(page)
+                .verifyComplete();
+        verify(carsService).findPage("model", 2000, "after", 50);
+    }
+
+    @Test
+    public void shouldCreateCars() {
+        //Given
+        Flux<Car> cars = Flux.just(car1, car2);
+        BulkResult result = new BulkResult("1234ABC", BulkResult.Status.CREATED);
+        when(carsService.createAll(cars, true)).thenReturn(Flux.just(result));
+
+        //When && Then
+        StepVerifier.create(carsController.createCars(cars, true))
+                .expectNext(result)
+                .verifyComplete();
+        verify(carsService).createAll(cars, true);
+    }
+
+    @Test
+    public void shouldStreamChanges() {
+        //Given
+        CarChange change = new CarChange(CarChange.Type.CREATED, car1);
+        when(carsService.changes()).thenReturn(Flux.just(change));
+
+        //When && Then
+        StepVerifier.create(carsController.changes())
+                .expectNext(change)
+                .verifyComplete();
+        verify(carsService).changes();
+    }
+
+    @Test
+    public void shouldFindByIds() {
+        //Given
+        ReflectionTestUtils.setField(carsController, "maxIds", 2);
+        LookupResult found = LookupResult.of("1234ABC", car1);
+        LookupResult missing = LookupResult.of("5678DEF", null);
+        when(carsService.findAllById(any())).thenReturn(Flux.just(found, missing));
+
+        //When && Then
+        StepVerifier.create(carsController.findByIds(asList("1234ABC", "5678DEF")))
+                .expectNext(found, missing)
+                .verifyComplete();
+        verify(carsService).findAllById(any());
+    }
+
+    @Test
+    public void shouldRejectMoreIdsThanTheLimit() {
+        //Given
+        ReflectionTestUtils.setField(carsController, "maxIds", 2);
+
+        //When && Then
+        StepVerifier.create(carsController.findByIds(asList("1234ABC", "5678DEF", "9012GHI")))
+                .verifyError(TooManyIdsException.class);
+        verifyZeroInteractions(carsService);
+    }
+
+    @Test
+    public void shouldTagCarAndAnswerNotModifiedWhenUnchanged() {
+        //Given
+        Car car = Car.builder().id("1234ABC").model("focus").year(2000).build();
+        when(carsService.findById("1234ABC")).thenReturn(Mono.just(car));
+        MockServerWebExchange first = get();
+        StepVerifier.create(carsController.findById("1234ABC", first))
+                .expectNext(car)
+                .verifyComplete();
+        String etag = first.getResponse().getHeaders().getETag();
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/cars/1234ABC").ifNoneMatch(etag));
+
+        //When && Then
+        StepVerifier.create(carsController.findById("1234ABC", second))
+                .verifyComplete();
+        assertThat(etag).startsWith("W/");
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedForUnchangedList() {
+        //Given
+        Car car = Car.builder().id("1234ABC").model("focus").year(2000).build();
+        when(carsService.findByModel("focus")).thenReturn(Flux.just(car));
+        MockServerWebExchange first = get();
+        StepVerifier.create(carsController.find("focus", null, first))
+                .expectNext(singletonList(car))
+                .verifyComplete();
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/cars?model=focus")
+                .ifNoneMatch(first.getResponse().getHeaders().getETag()));
+
+        //When && Then
+        StepVerifier.create(carsController.find("focus", null, second))
+                .verifyComplete();
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    private static MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/cars"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.nio.webflux.controller;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.service.ReactiveCarsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+
+@RunWith(MockitoJUnitRunner.class)
+public class CarsRouterTest {
+
+    @InjectMocks
+    private CarsHandler carsHandler;
+
+    @Mock
+    private ReactiveCarsService carsService;
+
+    private WebTestClient client;
+
+    private final Car car1 = Car.builder().id("1111AAA").model("model1").year(2001).build();
+
+    private final Car car2 = Car.builder().id("2222BBB").model("model2").year(2002).build();
+
+    @Before
+    public void setUp() {
+        client = WebTestClient.bindToRouterFunction(new CarsRouter().carsRoutes(carsHandler)).build();
+    }
+
+    @Test
+    public void shouldFindAll() {
+        //Given
+        when(carsService.findAll()).thenReturn(Flux.just(car1, car2));
+
+        //When && Then
+        client.get().uri("/cars").accept(APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", ETags.of(asList(car1, car2)))
+                .expectBodyList(Car.class).isEqualTo(asList(car1, car2));
+    }
+
+    @Test
+    public void shouldFindByModelAndYear() {
+        //Given
+        when(carsService.findByModelAndYear("model1", 2001)).thenReturn(Flux.just(car1));
+
+        //When && Then
+        client.get().uri("/cars?model=model1&year=2001").accept(APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Car.class).isEqualTo(asList(car1));
+    }
+
+    @Test
+    public void shouldAnswerBadRequestForInvalidYear() {
+        //When && Then
+        client.get().uri("/cars?year=abc").accept(APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest();
+        verifyZeroInteractions(carsService);
+    }
+
+    @Test
+    public void shouldNotRoutePagesAndMultiGet() {
+        //When && Then
+        client.get().uri("/cars?size=10").accept(APPLICATION_JSON).exchange().expectStatus().isNotFound();
+        client.get().uri("/cars?ids=1111AAA").accept(APPLICATION_JSON).exchange().expectStatus().isNotFound();
+        client.get().uri("/cars/stream").exchange().expectStatus().isNotFound();
+        verifyZeroInteractions(carsService);
+    }
+
+    @Test
+    public void shouldFindById() {
+        //Given
+        when(carsService.findById("1111AAA")).thenReturn(Mono.just(car1));
+
+        //When && Then
+        client.get().uri("/cars/1111AAA").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", ETags.of(car1))
+                .expectBody(Car.class).isEqualTo(car1);
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWhenETagMatches() {
+        //Given
+        when(carsService.findById("1111AAA")).thenReturn(Mono.just(car1));
+
+        //When && Then
+        client.get().uri("/cars/1111AAA").header("If-None-Match", ETags.of(car1)).exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void shouldAnswerEmptyWhenIdNotExist() {
+        //Given
+        when(carsService.findById("notExistentId")).thenReturn(Mono.empty());
+
+        //When && Then
+        client.get().uri("/cars/notExistentId").exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void shouldCreate() {
+        //Given
+        when(carsService.create(any())).thenReturn(Mono.just(car1));
+
+        //When && Then
+        client.post().uri("/cars").contentType(APPLICATION_JSON).syncBody(car1).exchange()
+                .expectStatus().isOk()
+                .expectBody(Car.class).isEqualTo(car1);
+        verify(carsService).create(car1);
+    }
+
+    @Test
+    public void shouldUpdate() {
+        //Given
+        when(carsService.update(any())).thenReturn(Mono.just(car2));
+
+        //When && Then
+        client.put().uri("/cars").contentType(APPLICATION_JSON).syncBody(car2).exchange()
+                .expectStatus().isOk()
+                .expectBody(Car.class).isEqualTo(car2);
+        verify(carsService).update(car2);
+    }
+}
@@ -0,0 +1,43 @@
+package com.nio.webflux.controller;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarsPage;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ETagsTest {
+
+    private final Car car = Car.builder().id("1234ABC").model("focus").year(2000).build();
+
+    @Test
+    public void shouldTagEqualCarsAlike() {
+        assertThat(ETags.of(car)).isEqualTo(ETags.of(car.toBuilder().build()))
+                .matches("W/\"[0-9a-f]+\"");
+    }
+
+    @Test
+    public void shouldTagChangedCarDifferently() {
+        assertThat(ETags.of(car)).isNotEqualTo(ETags.of(car.toBuilder().model("polo").build()));
+        assertThat(ETags.of(car)).isNotEqualTo(ETags.of(car.toBuilder().year(null).build()));
+    }
+
+    @Test
+    public void shouldNotConfuseFieldBoundaries() {
+        assertThat(ETags.of(Car.builder().id("ab").model("c").build()))
+                .isNotEqualTo(ETags.of(Car.builder().id("a").model("bc").build()));
+        assertThat(ETags.of(Car.builder().id("a").model("").build()))
+                .isNotEqualTo(ETags.of(Car.builder().id("a").build()));
+    }
+
+    @Test
+    public void shouldTagListsByContentAndOrder() {
+        Car other = Car.builder().id("5678DEF").model("polo").year(2001).build();
+
+        assertThat(ETags.of(asList(car, other))).isEqualTo(ETags.of(asList(car, other)))
+                .isNotEqualTo(ETags.of(asList(other, car)));
+        assertThat(ETags.of(new CarsPage(asList(car), "next")))
+                .isNotEqualTo(ETags.of(new CarsPage(asList(car), null)));
+    }
+}
@@ -0,0 +1,164 @@
+package com.nio.webflux.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop generator: requests are started at a fixed arrival rate whatever the server does, and latency is
+ * measured from the time each request was <em>meant</em> to start. A stalled server therefore shows up as
+ * queueing delay in the percentiles instead of silently lowering the request rate (coordinated omission).
+ */
+class LoadGenerator {
+
+    private final HttpClient client;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final int dataset;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> timeouts = new EnumMap<>(Operation.class);
+    private final Map<Long, Pending> measuredInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    LoadGenerator(HttpClient client, Map<Operation, Integer> mix, int dataset) {
+        this.client = client;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.dataset = dataset;
+        mix.keySet().forEach(operation -> {
+            latencies.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+            timeouts.put(operation, new LongAdder());
+        });
+    }
+
+    /**
+     * Sends {@code rate} requests per second during {@code warmup + duration}, only recording the requests
+     * scheduled after the warmup, and waits up to 30s for the in-flight ones before returning. Measured requests
+     * still outstanding then are counted as timeouts and recorded with the latency they had reached, so the
+     * slowest samples are not dropped from the percentiles.
+     */
+    Map<Operation, Result> run(int rate, Duration warmup, Duration duration) {
+        long period = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + sequence * period;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(pick(), sequence, intended, intended - measureFrom >= 0);
+        }
+        awaitInFlight(Duration.ofSeconds(30));
+        timeOutInFlight();
+
+        Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        latencies.forEach((operation, recorder) -> results.put(operation, new Result(recorder.getIntervalHistogram(),
+                errors.get(operation).sum(), timeouts.get(operation).sum(), duration)));
+        return results;
+    }
+
+    private void send(Operation operation, long sequence, long intended, boolean measured) {
+        inFlight.incrementAndGet();
+        if (measured) {
+            measuredInFlight.put(sequence, new Pending(operation, intended));
+        }
+        operation.send(client, dataset, sequence)
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(status -> {
+                    // Already counted as a timeout when no longer pending
+                    if (!measured || measuredInFlight.remove(sequence) == null) {
+                        return;
+                    }
+                    if (status >= 400) {
+                        errors.get(operation).increment();
+                    } else {
+                        latencies.get(operation).recordValue(System.nanoTime() - intended);
+                    }
+                }, error -> {
+                    if (measured && measuredInFlight.remove(sequence) != null) {
+                        errors.get(operation).increment();
+                    }
+                });
+    }
+
+    private void timeOutInFlight() {
+        long now = System.nanoTime();
+        measuredInFlight.keySet().forEach(sequence -> {
+            Pending pending = measuredInFlight.remove(sequence);
+            if (pending != null) {
+                timeouts.get(pending.operation).increment();
+                latencies.get(pending.operation).recordValue(now - pending.intended);
+            }
+        });
+    }
+
+    private Operation pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+
+    private void awaitInFlight(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+    }
+
+    private static class Pending {
+        final Operation operation;
+        final long intended;
+
+        Pending(Operation operation, long intended) {
+            this.operation = operation;
+            this.intended = intended;
+        }
+    }
+
+    static class Result {
+        /**
+         * Successful responses and timeouts, the latter at the latency they had reached.
+         */
+        final Histogram latencies;
+        final long errors;
+        final long timeouts;
+        final Duration duration;
+
+        Result(Histogram latencies, long errors, long timeouts, Duration duration) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.timeouts = timeouts;
+            this.duration = duration;
+        }
+
+        double throughput() {
+            return (latencies.getTotalCount() + errors) / (double) duration.getSeconds();
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.nio.webflux.loadtest;
+
+import com.nio.webflux.SpringWebfluxNioPerformanceApplication;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Reproducible HTTP load test of the cars API, run from the test classpath:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.nio.webflux.loadtest.LoadTest \
+ *     -Dexec.args="--mode=blocking --rate=2000 --connections=200 --duration=60s"
+ * </pre>
+ * Options (all {@code --name=value}):
+ * <ul>
+ * <li>{@code url}: target of an already running instance; without it the application is started in this JVM
+ * on a random port</li>
+ * <li>{@code mode}: for the in-process instance, {@code blocking} (JPA on the event loop),
+ * {@code offloaded} (JPA on the cars scheduler, default) or {@code r2dbc} (the R2DBC engine)</li>
+ * <li>{@code rate}: requests per second, default 1000</li>
+ * <li>{@code connections}: client connection pool size, default 100</li>
+ * <li>{@code warmup} and {@code duration}: default 10s and 60s</li>
+ * <li>{@code mix}: weights per operation, default {@code get_by_id:80,list:5,create:10,update:5}</li>
+ * <li>{@code dataset}: cars seeded before the run, default 10000: by the in-process application's startup loader,
+ * or through POST /cars/_bulk for an instance given by {@code url}</li>
+ * </ul>
+ * Any other option, e.g. {@code --cars.cache.by-id.max-size=0}, is passed to the in-process application.
+ */
+public class LoadTest {
+
+    private static final List<String> OPTIONS = List.of("url", "mode", "rate", "connections", "warmup", "duration", "mix", "dataset");
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (OPTIONS.contains(option[0])) {
+                options.put(option[0], option.length > 1 ? option[1] : "");
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        ConfigurableApplicationContext application = null;
+        String url = options.get("url");
+        int dataset = Integer.parseInt(options.getOrDefault("dataset", "10000"));
+        if (url == null) {
+            application = start(options.getOrDefault("mode", "offloaded"), dataset, applicationArgs);
+            url = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        }
+
+        int connections = Integer.parseInt(options.getOrDefault("connections", "100"));
+        HttpClient client = HttpClient.create(ConnectionProvider.fixed("load-test", connections))
+                .baseUrl(url);
+        try {
+            if (application == null) {
+                seed(client, dataset);
+            }
+            LoadGenerator generator = new LoadGenerator(client, mix(options.getOrDefault("mix", "get_by_id:80,list:5,create:10,update:5")), dataset);
+            Map<Operation, LoadGenerator.Result> results = generator.run(
+                    Integer.parseInt(options.getOrDefault("rate", "1000")),
+                    DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s")),
+                    DurationStyle.detectAndParse(options.getOrDefault("duration", "60s")));
+            report(options, url, results);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode, int dataset, List<String> applicationArgs) {
+        List<String> args = new ArrayList<>(applicationArgs);
+        args.add("--server.port=0");
+        args.add("--cars.seed.count=" + dataset);
+        args.add("--cars.seed.id-prefix=" + Operation.SEED_ID_PREFIX);
+        switch (mode) {
+            case "blocking":
+                args.add("--cars.scheduler.type=IMMEDIATE");
+                break;
+            case "offloaded":
+                break;
+            case "r2dbc":
+                args.add("--spring.profiles.active=r2dbc");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        return SpringApplication.run(SpringWebfluxNioPerformanceApplication.class, args.toArray(new String[0]));
+    }
+
+    /**
+     * Upserts the dataset through POST /cars/_bulk and fails unless every car was created or updated, so a
+     * partial seed does not turn the run into a measurement of empty lookups.
+     */
+    private static void seed(HttpClient client, int dataset) {
+        Flux<String> cars = Flux.range(0, dataset)
+                .map(index -> Operation.car(Operation.seededId(index), Operation.model(index % Operation.MODELS), Operation.year(index)) + "\n");
+        Map<String, Long> statuses = client.headers(headers -> headers
+                .set(HttpHeaderNames.CONTENT_TYPE, "application/stream+json")
+                .set(HttpHeaderNames.ACCEPT, "application/stream+json"))
+                .post()
+                .uri("/cars/_bulk?upsert=true")
+                .send(ByteBufFlux.fromString(cars))
+                .response((response, content) -> response.status().code() == 200
+                        ? content.asString().collect(Collectors.joining())
+                        : Mono.error(new IllegalStateException("Seeding answered " + response.status())))
+                .next()
+                .map(LoadTest::countStatuses)
+                .block(Duration.ofMinutes(10));
+        long written = statuses.getOrDefault("CREATED", 0L) + statuses.getOrDefault("UPDATED", 0L);
+        if (written != dataset) {
+            throw new IllegalStateException(format("Seeded %d of %d cars: %s", written, dataset, statuses));
+        }
+    }
+
+    private static Map<String, Long> countStatuses(String results) {
+        Matcher status = Pattern.compile("\"status\":\"(\\w+)\"").matcher(results);
+        Map<String, Long> counts = new TreeMap<>();
+        while (status.find()) {
+            counts.merge(status.group(1), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private static Map<Operation, Integer> mix(String weights) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String weight : weights.split(",")) {
+            String[] entry = weight.split(":");
+            mix.put(Operation.valueOf(entry[0].trim().toUpperCase()), Integer.parseInt(entry[1].trim()));
+        }
+        return mix;
+    }
+
+    private static void report(Map<String, String> options, String url, Map<Operation, LoadGenerator.Result> results) {
+        System.out.println(format("%nLoad test against %s %s", url, options));
+        System.out.println(format("%-10s %10s %8s %8s %10s %9s %9s %9s %9s %9s",
+                "operation", "requests", "errors", "timeouts", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        results.forEach((operation, result) -> System.out.println(format("%-10s %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                operation.name().toLowerCase(),
+                result.latencies.getTotalCount(),
+                result.errors,
+                result.timeouts,
+                result.throughput(),
+                result.percentileMillis(50),
+                result.percentileMillis(90),
+                result.percentileMillis(99),
+                result.percentileMillis(99.9),
+                result.latencies.getMaxValue() / 1_000_000.0)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.nio.webflux.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.lang.String.format;
+
+/**
+ * Requests the load test can send. Ids of read and update requests are picked among the {@code dataset}
+ * cars seeded before the run, created cars get ids that cannot clash with them.
+ */
+enum Operation {
+
+    LIST {
+        @Override
+        Mono<Integer> send(HttpClient client, int dataset, long sequence) {
+            return status(client.get().uri("/cars"));
+        }
+    },
+    GET_BY_ID {
+        @Override
+        Mono<Integer> send(HttpClient client, int dataset, long sequence) {
+            return status(client.get().uri("/cars/" + seededId(randomIndex(dataset))));
+        }
+    },
+    CREATE {
+        @Override
+        Mono<Integer> send(HttpClient client, int dataset, long sequence) {
+            return status(json(client).post().uri("/cars")
+                    .send(body(car(format("NEW%d-%d", System.nanoTime(), sequence), "created", 2020))));
+        }
+    },
+    UPDATE {
+        @Override
+        Mono<Integer> send(HttpClient client, int dataset, long sequence) {
+            int index = randomIndex(dataset);
+            return status(json(client).put().uri("/cars")
+                    .send(body(car(seededId(index), model(ThreadLocalRandom.current().nextInt(MODELS)), year(index)))));
+        }
+    };
+
+    static final int MODELS = 50;
+    static final int YEARS = 30;
+    static final String SEED_ID_PREFIX = "LOAD";
+
+    abstract Mono<Integer> send(HttpClient client, int dataset, long sequence);
+
+    static String seededId(int index) {
+        return format("%s%07d", SEED_ID_PREFIX, index);
+    }
+
+    static String model(int index) {
+        return "model" + index;
+    }
+
+    static int year(int index) {
+        return 1990 + index % YEARS;
+    }
+
+    static String car(String id, String model, int year) {
+        return format("{\"id\":\"%s\",\"model\":\"%s\",\"year\":%d}", id, model, year);
+    }
+
+    static HttpClient json(HttpClient client) {
+        return client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"));
+    }
+
+    static Mono<Integer> status(HttpClient.ResponseReceiver<?> request) {
+        return request.response((response, content) -> content.then(Mono.just(response.status().code())))
+                .single();
+    }
+
+    private static ByteBufFlux body(String json) {
+        return ByteBufFlux.fromString(Mono.just(json));
+    }
+
+    private static int randomIndex(int dataset) {
+        return ThreadLocalRandom.current().nextInt(Math.max(dataset, 1));
+    }
+}
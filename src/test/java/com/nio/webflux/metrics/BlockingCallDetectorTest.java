@@ -0,0 +1,85 @@
+package com.nio.webflux.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlockingCallDetectorTest {
+
+    private static final Pattern EVENT_LOOPS = Pattern.compile("reactor-http-.*");
+
+    @Mock
+    private DataSource dataSource;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void shouldNotReportCallsFromBlockingThreads() throws Exception {
+        //Given
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        BlockingCallDetector detector = new BlockingCallDetector(dataSource, EVENT_LOOPS, true, () -> registry);
+
+        //When && Then
+        assertThat(detector.getConnection()).isSameAs(connection);
+        assertThat(registry.find("cars.blocking.calls").counter()).isNull();
+    }
+
+    @Test
+    public void shouldReportCallsFromEventLoopThreads() throws Exception {
+        //Given
+        BlockingCallDetector detector = new BlockingCallDetector(dataSource, EVENT_LOOPS, false, () -> registry);
+
+        //When
+        onThread("reactor-http-nio-3", detector);
+
+        //Then
+        verify(dataSource).getConnection();
+        assertThat(registry.get("cars.blocking.calls").tag("thread", "reactor-http-nio").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRejectCallsFromEventLoopThreadsWhenFailing() {
+        //Given
+        BlockingCallDetector detector = new BlockingCallDetector(dataSource, EVENT_LOOPS, true, () -> registry);
+
+        //When
+        Throwable thrown = catchThrowable(() -> onThread("reactor-http-nio-1", detector));
+
+        //Then
+        assertThat(thrown).hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Blocking JDBC call on non-blocking thread reactor-http-nio-1");
+    }
+
+    private static void onThread(final String name, final BlockingCallDetector detector) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    detector.getConnection();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nio.webflux.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.tcp.TcpClient;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NettyServerMetricsTest {
+
+    private final NettyServerMetrics metrics = new NettyServerMetrics();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private DisposableServer server;
+
+    @Before
+    public void setUp() {
+        metrics.bindTo(registry);
+        server = metrics.apply(HttpServer.create().port(0))
+                .handle((request, response) -> response.sendString(Mono.just("ok")))
+                .bindNow();
+    }
+
+    @After
+    public void tearDown() {
+        server.disposeNow();
+    }
+
+    @Test
+    public void shouldCountConnectionsRatherThanRequests() {
+        //Given
+        Connection connection = connect();
+
+        //When
+        connection.outbound().sendString(Mono.just("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n")).then().block(Duration.ofSeconds(5));
+
+        //Then
+        await(() -> active() == 1);
+        assertThat(registry.get("reactor.netty.connections.total").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("reactor.netty.eventloop.pending.tasks").tag("eventloop", "0").gauge().value())
+                .isNotNegative();
+
+        //When
+        connection.disposeNow();
+
+        //Then
+        await(() -> active() == 0);
+        assertThat(registry.get("reactor.netty.connections.total").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBindEventLoopsTrackedBeforeTheRegistry() {
+        //Given
+        connect().disposeNow();
+        await(() -> active() == 0);
+        SimpleMeterRegistry late = new SimpleMeterRegistry();
+
+        //When
+        metrics.bindTo(late);
+
+        //Then
+        assertThat(late.get("reactor.netty.eventloop.pending.tasks").tag("eventloop", "0").gauge()).isNotNull();
+        assertThat(late.get("reactor.netty.connections.total").functionCounter().count()).isEqualTo(1);
+    }
+
+    private Connection connect() {
+        Connection connection = TcpClient.create().port(server.port()).connectNow();
+        await(() -> registry.get("reactor.netty.connections.total").functionCounter().count() > 0);
+        return connection;
+    }
+
+    private double active() {
+        return registry.get("reactor.netty.connections.active").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 5s").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
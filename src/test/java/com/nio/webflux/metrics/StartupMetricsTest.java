@@ -0,0 +1,70 @@
+package com.nio.webflux.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class StartupMetricsTest {
+
+    private final StartupMetrics startupMetrics = new StartupMetrics();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    @Before
+    public void setUp() {
+        startupMetrics.bindTo(registry);
+    }
+
+    @Test
+    public void shouldReportNothingBeforeStarting() {
+        //When && Then
+        assertThat(firstRequest()).isZero();
+        assertThat(registry.get("cars.startup.ready").timeGauge().value(TimeUnit.MILLISECONDS)).isZero();
+    }
+
+    @Test
+    public void shouldRecordReadyOnce() {
+        //When
+        startupMetrics.onApplicationEvent(mock(ApplicationReadyEvent.class));
+        double ready = registry.get("cars.startup.ready").timeGauge().value(TimeUnit.MILLISECONDS);
+        startupMetrics.onApplicationEvent(mock(ApplicationReadyEvent.class));
+
+        //Then
+        assertThat(ready).isPositive();
+        assertThat(registry.get("cars.startup.ready").timeGauge().value(TimeUnit.MILLISECONDS)).isEqualTo(ready);
+    }
+
+    @Test
+    public void shouldRecordOnlyTheFirstAnsweredRequest() throws Exception {
+        //When
+        StepVerifier.create(startupMetrics.filter(get(), chain)).verifyComplete();
+        double first = firstRequest();
+        Thread.sleep(5);
+        StepVerifier.create(startupMetrics.filter(get(), chain)).verifyComplete();
+
+        //Then
+        assertThat(first).isPositive();
+        assertThat(firstRequest()).isEqualTo(first);
+    }
+
+    private double firstRequest() {
+        return registry.get("cars.startup.first-request").timeGauge().value(TimeUnit.MILLISECONDS);
+    }
+
+    private static MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/cars/1111AAA").build());
+    }
+}
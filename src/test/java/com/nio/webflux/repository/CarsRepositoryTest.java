@@ -1,20 +1,31 @@
 package com.nio.webflux.repository;
 
 import com.nio.webflux.model.Car;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.transaction.annotation.Propagation.NOT_SUPPORTED;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.nio.webflux.repository.RecordingStatementInspector")
 @RunWith(SpringRunner.class)
 public class CarsRepositoryTest {
 
@@ -192,4 +203,171 @@ public class CarsRepositoryTest {
         //Then
         assertThat(carsRepository.findById(id)).isNotPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = NOT_SUPPORTED)
+    public void shouldStreamAll() {
+        //Given
+        Car car = Car.builder().id("5678STR").model("stream").year(2010).build();
+        carsRepository.save(car);
+
+        //When
+        List<Car> streamed;
+        try (Stream<Car> cars = carsRepository.streamAll()) {
+            streamed = cars.collect(toList());
+        } finally {
+            carsRepository.deleteById("5678STR");
+        }
+
+        //Then
+        assertThat(streamed).contains(car);
+    }
+
+    @Test
+    public void shouldFindPageAfterId() {
+        //Given
+        Car car1 = Car.builder().id("PAGE001").model("page").year(1990).build();
+        Car car2 = Car.builder().id("PAGE002").model("page").year(1991).build();
+        Car car3 = Car.builder().id("PAGE003").model("page").year(1990).build();
+        Stream.of(car3, car1, car2).forEach(testEntityManager::persist);
+
+        //When && Then
+        assertThat(carsRepository.findByModelAndIdGreaterThanOrderById("page", "", PageRequest.of(0, 2)))
+                .containsExactly(car1, car2);
+        assertThat(carsRepository.findByModelAndIdGreaterThanOrderById("page", "PAGE002", PageRequest.of(0, 2)))
+                .containsExactly(car3);
+        assertThat(carsRepository.findByModelAndYearAndIdGreaterThanOrderById("page", 1990, "PAGE001", PageRequest.of(0, 2)))
+                .containsExactly(car3);
+        assertThat(carsRepository.findByYearAndIdGreaterThanOrderById(1991, "", PageRequest.of(0, 2)))
+                .containsExactly(car2);
+        assertThat(carsRepository.findByIdGreaterThanOrderById("PAGE001", PageRequest.of(0, 1)))
+                .containsExactly(car2);
+    }
+
+    @Test
+    public void shouldFindByModelUsingIndex() {
+        assertThat(explain(() -> carsRepository.findByModel("fiesta"), "fiesta"))
+                .containsIgnoringCase("idx_car_model_year");
+    }
+
+    @Test
+    public void shouldFindByYearUsingIndex() {
+        assertThat(explain(() -> carsRepository.findByYear(2000), 2000))
+                .containsIgnoringCase("idx_car_year");
+    }
+
+    @Test
+    public void shouldFindByModelAndYearUsingIndex() {
+        assertThat(explain(() -> carsRepository.findByModelAndYear("fiesta", 2000), "fiesta", 2000))
+                .containsIgnoringCase("idx_car_model_year");
+    }
+
+    @Test
+    public void shouldPageByIdInPrimaryKeyOrder() {
+        assertThat(explain(() -> carsRepository.findByIdGreaterThanOrderById("A", PageRequest.of(0, 2)), "A", 2))
+                .containsIgnoringCase("primary_key")
+                .containsIgnoringCase("index sorted");
+    }
+
+    @Test
+    public void shouldPageByModelUsingIndex() {
+        assertThat(explain(() -> carsRepository.findByModelAndIdGreaterThanOrderById("fiesta", "A", PageRequest.of(0, 2)),
+                "fiesta", "A", 2))
+                .containsIgnoringCase("idx_car_model_year");
+    }
+
+    @Test
+    public void shouldPageByYearUsingIndex() {
+        assertThat(explain(() -> carsRepository.findByYearAndIdGreaterThanOrderById(2000, "A", PageRequest.of(0, 2)),
+                2000, "A", 2))
+                .containsIgnoringCase("idx_car_year");
+    }
+
+    @Test
+    public void shouldPageByModelAndYearUsingBothIndexColumns() {
+        assertThat(explain(() -> carsRepository.findByModelAndYearAndIdGreaterThanOrderById("fiesta", 2000, "A", PageRequest.of(0, 2)),
+                "fiesta", 2000, "A", 2))
+                .containsPattern("(?is)idx_car_model_year: model = \\?1\\s+and year = \\?2");
+    }
+
+    /**
+     * Plan of the SQL that {@code query} made Hibernate run, with {@code parameters} bound in order.
+     */
+    private String explain(Runnable query, Object... parameters) {
+        RecordingStatementInspector.clear();
+        query.run();
+        String sql = RecordingStatementInspector.last();
+        assertThat(sql).containsIgnoringCase("from car");
+        return testEntityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void shouldInsertAll() {
+        //Given
+        Car car1 = Car.builder().id("BULK001").model("bulk").year(1980).build();
+        Car car2 = Car.builder().id("BULK002").model("bulk").year(1981).build();
+
+        //When
+        carsRepository.insertAll(asList(car1, car2));
+
+        //Then
+        assertThat(carsRepository.findByModel("bulk")).containsExactlyInAnyOrder(car1, car2);
+    }
+
+    @Test
+    public void shouldInsert() {
+        //Given
+        Car car = Car.builder().id("1234INS").model("fiesta").year(2018).build();
+
+        //When
+        carsRepository.insert(car);
+
+        //Then
+        testEntityManager.clear();
+        assertThat(testEntityManager.find(Car.class, "1234INS"))
+                .extracting("id", "model", "year")
+                .contains("1234INS", "fiesta", 2018);
+    }
+
+    @Test
+    public void shouldNotInsertDuplicateId() {
+        //Given
+        testEntityManager.persistAndFlush(Car.builder().id("1234DUP").model("fiesta").year(2018).build());
+        testEntityManager.clear();
+
+        //When && Then
+        assertThatThrownBy(() -> carsRepository.insert(Car.builder().id("1234DUP").model("focus").year(2019).build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void shouldUpdateModel() {
+        //Given
+        testEntityManager.persistAndFlush(Car.builder().id("1234UPD").model("scort").year(2019).build());
+        testEntityManager.clear();
+
+        //When
+        Optional<Car> updated = carsRepository.updateModel("1234UPD", "mondeo");
+
+        //Then
+        assertThat(updated).contains(Car.builder().id("1234UPD").model("mondeo").year(2019).build());
+        assertThat(testEntityManager.find(Car.class, "1234UPD"))
+                .extracting("id", "model", "year")
+                .contains("1234UPD", "mondeo", 2019);
+    }
+
+    @Test
+    public void shouldNotUpdateModelWhenCarNotExist() {
+        assertThat(carsRepository.updateModel("idToUpdate", "mondeo")).isEmpty();
+    }
+}
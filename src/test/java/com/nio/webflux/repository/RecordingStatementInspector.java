@@ -0,0 +1,26 @@
+package com.nio.webflux.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Keeps the last SQL statement Hibernate prepared on the current thread, so tests can check the plan of the
+ * query a repository method really runs.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<String> LAST = new ThreadLocal<>();
+
+    @Override
+    public String inspect(final String sql) {
+        LAST.set(sql);
+        return sql;
+    }
+
+    static String last() {
+        return LAST.get();
+    }
+
+    static void clear() {
+        LAST.remove();
+    }
+}
@@ -0,0 +1,160 @@
+package com.nio.webflux.server;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_STREAM_JSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+
+public class AdmissionControlFilterTest {
+
+    private final ConcurrencyLimiter reads = ConcurrencyLimiter.fixed(1);
+
+    private final ConcurrencyLimiter writes = ConcurrencyLimiter.fixed(1);
+
+    private final ConcurrencyLimiter streams = ConcurrencyLimiter.fixed(1);
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(reads, writes, streams,
+            HttpStatus.TOO_MANY_REQUESTS, singletonList("/cars/stream"));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MonoProcessor<Void> pending = MonoProcessor.create();
+
+    private final WebFilterChain hanging = exchange -> pending;
+
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    @Before
+    public void setUp() {
+        filter.bindTo(registry);
+    }
+
+    @Test
+    public void shouldRejectReadsOverTheLimit() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+        MockServerWebExchange rejected = exchange(MockServerHttpRequest.get("/cars"));
+
+        //When
+        StepVerifier.create(filter.filter(rejected, chain)).verifyComplete();
+
+        //Then
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(registry.get("cars.admission.rejected").tag("route", "reads").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("cars.admission.in-flight").tag("route", "reads").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLimitWritesApartFromReads() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+        MockServerWebExchange write = exchange(MockServerHttpRequest.put("/cars"));
+
+        //When
+        StepVerifier.create(filter.filter(write, chain)).verifyComplete();
+
+        //Then
+        assertThat(write.getResponse().getStatusCode()).isNull();
+        assertThat(writes.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldReleaseWhenTheRequestEnds() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+
+        //When
+        pending.onComplete();
+
+        //Then
+        assertThat(reads.getInFlight()).isZero();
+        MockServerWebExchange next = exchange(MockServerHttpRequest.get("/cars/1"));
+        StepVerifier.create(filter.filter(next, chain)).verifyComplete();
+        assertThat(next.getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    public void shouldNotLimitExcludedAndOtherPaths() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+
+        //When && Then
+        StepVerifier.create(filter.filter(exchange(MockServerHttpRequest.get("/cars/stream")), chain))
+                .verifyComplete();
+        StepVerifier.create(filter.filter(exchange(MockServerHttpRequest.get("/actuator/health")), chain))
+                .verifyComplete();
+        assertThat(registry.get("cars.admission.rejected").tag("route", "reads").functionCounter().count())
+                .isZero();
+    }
+
+    @Test
+    public void shouldLimitStreamsApartFromReads() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+        MediaType streamJson = MediaType.parseMediaType("application/stream+json;charset=UTF-8");
+        MockServerWebExchange stream = exchange(MockServerHttpRequest.get("/cars").accept(streamJson));
+        filter.filter(stream, hanging).subscribe();
+        MockServerWebExchange rejected = exchange(MockServerHttpRequest.get("/cars").accept(APPLICATION_STREAM_JSON));
+
+        //When
+        StepVerifier.create(filter.filter(rejected, chain)).verifyComplete();
+
+        //Then
+        assertThat(stream.getResponse().getStatusCode()).isNull();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(registry.get("cars.admission.rejected").tag("route", "streams").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotLetTheAcceptHeaderSkipTheLimits() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+        MockServerWebExchange events = exchange(MockServerHttpRequest.get("/cars").accept(TEXT_EVENT_STREAM));
+        MockServerWebExchange byId = exchange(MockServerHttpRequest.get("/cars/2").accept(APPLICATION_STREAM_JSON));
+
+        //When
+        StepVerifier.create(filter.filter(events, chain)).verifyComplete();
+        StepVerifier.create(filter.filter(byId, chain)).verifyComplete();
+
+        //Then
+        assertThat(events.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(byId.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(streams.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldLimitTheMultiGetAsARead() {
+        //Given
+        filter.filter(exchange(MockServerHttpRequest.get("/cars/1")), hanging).subscribe();
+        MockServerWebExchange mget = exchange(MockServerHttpRequest.post("/cars/_mget"));
+
+        //When
+        StepVerifier.create(filter.filter(mget, chain)).verifyComplete();
+
+        //Then
+        assertThat(mget.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(writes.getInFlight()).isZero();
+        assertThat(registry.get("cars.admission.rejected").tag("route", "writes").functionCounter().count())
+                .isZero();
+    }
+
+    private static MockServerWebExchange exchange(final MockServerHttpRequest.BaseBuilder<?> request) {
+        return MockServerWebExchange.from(request);
+    }
+}
@@ -0,0 +1,71 @@
+package com.nio.webflux.server;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    public void shouldRejectOverTheLimitUntilReleased() {
+        //Given
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed(2);
+
+        //When && Then
+        assertThat(limiter.tryAcquire()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isZero();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release(MILLIS, 2, true);
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldGrowWhileLatencyIsSteady() {
+        //Given
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.gradient(20, 5, 100, 1.5, 0.2);
+
+        //When
+        for (int i = 0; i < 200; i++) {
+            limiter.release(10 * MILLIS, limiter.getLimit(), true);
+        }
+
+        //Then
+        assertThat(limiter.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldShrinkWhenLatencyRises() {
+        //Given
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.gradient(50, 5, 100, 1.5, 0.2);
+        limiter.release(10 * MILLIS, 50, true);
+        int steady = limiter.getLimit();
+
+        //When
+        for (int i = 0; i < 50; i++) {
+            limiter.release(100 * MILLIS, limiter.getLimit(), true);
+        }
+
+        //Then
+        assertThat(limiter.getLimit()).isLessThan(steady).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldIgnoreSamplesWhenTheLimitIsNotUsed() {
+        //Given
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.gradient(20, 5, 100, 1.5, 0.2);
+
+        //When
+        for (int i = 0; i < 50; i++) {
+            limiter.release(10 * MILLIS, 2, true);
+            limiter.release(10 * MILLIS, 20, false);
+        }
+
+        //Then
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,72 @@
+package com.nio.webflux.server;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static io.netty.handler.codec.http.HttpMethod.GET;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static io.netty.handler.timeout.IdleStateEvent.ALL_IDLE_STATE_EVENT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the idle callback directly instead of waiting for the timer, so the tests do not depend on how
+ * long the machine takes to get there.
+ */
+public class IdleTimeoutHandlerTest {
+
+    private final HttpRequest request = new DefaultFullHttpRequest(HTTP_1_1, GET, "/cars/stream");
+
+    private final HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
+
+    private final IdleTimeoutHandler handler = new IdleTimeoutHandler(Duration.ofMinutes(1));
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+    @Test
+    public void shouldCloseIdleConnectionBetweenRequests() {
+        //Given
+        channel.writeOutbound(response, LastHttpContent.EMPTY_LAST_CONTENT);
+
+        //When
+        idle();
+
+        //Then
+        assertThat(channel.isOpen()).isFalse();
+    }
+
+    @Test
+    public void shouldKeepConnectionOpenWhileResponding() {
+        //Given
+        channel.writeOutbound(response, LastHttpContent.EMPTY_LAST_CONTENT);
+        channel.writeInbound(request);
+        channel.writeOutbound(response);
+
+        //When
+        idle();
+
+        //Then
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    @Test
+    public void shouldKeepConnectionOpenWhileServingTheFirstRequest() {
+        //When
+        idle();
+
+        //Then
+        assertThat(channel.isOpen()).isTrue();
+    }
+
+    private void idle() {
+        handler.channelIdle(channel.pipeline().context(handler), ALL_IDLE_STATE_EVENT);
+        channel.runPendingTasks();
+    }
+}
@@ -0,0 +1,130 @@
+package com.nio.webflux.server;
+
+import com.nio.webflux.config.NettyServerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NettyServerTuningTest {
+
+    private final NettyServerProperties properties = new NettyServerProperties();
+
+    private final LoopResources loops = LoopResources.create("tuning-test", 1, 1, true);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicReference<Channel> served = new AtomicReference<>();
+
+    private final AtomicReference<String> servingThread = new AtomicReference<>();
+
+    private DisposableServer server;
+
+    @After
+    public void tearDown() {
+        server.disposeNow();
+        loops.dispose();
+    }
+
+    @Test
+    public void shouldCloseConnectionsAboveTheLimit() {
+        //Given
+        properties.setMaxConnections(1);
+        start();
+        ConnectionProvider single = ConnectionProvider.fixed("tuning-test", 1);
+        HttpClient keptAlive = HttpClient.create(single).port(server.port());
+        assertThat(get(keptAlive)).isEqualTo("ok");
+
+        //When
+        Connection rejected = TcpClient.newConnection().port(server.port()).connectNow();
+
+        //Then
+        rejected.onDispose().block(Duration.ofSeconds(5));
+        assertThat(registry.get("reactor.netty.connections.rejected").functionCounter().count()).isEqualTo(1);
+        assertThat(get(keptAlive)).isEqualTo("ok");
+        single.dispose();
+    }
+
+    @Test
+    public void shouldAcceptAgainOnceAConnectionCloses() {
+        //Given
+        properties.setMaxConnections(1);
+        start();
+        ConnectionProvider single = ConnectionProvider.fixed("tuning-test", 1);
+        assertThat(get(HttpClient.create(single).port(server.port()))).isEqualTo("ok");
+
+        //When
+        single.dispose();
+
+        //Then
+        String body = HttpClient.create().port(server.port()).get().uri("/")
+                .responseContent().aggregate().asString()
+                .retryBackoff(50, Duration.ofMillis(10), Duration.ofMillis(100))
+                .block(Duration.ofSeconds(5));
+        assertThat(body).isEqualTo("ok");
+    }
+
+    @Test
+    public void shouldServeOnTheGivenLoopsWithUnpooledHeapBuffers() {
+        //Given
+        properties.setNativeTransport(false);
+        properties.setPooledBuffers(false);
+        properties.setDirectBuffers(false);
+        start();
+
+        //When
+        get(HttpClient.create().port(server.port()));
+
+        //Then
+        assertThat(servingThread.get()).startsWith("tuning-test");
+        assertThat(served.get()).isInstanceOf(NioSocketChannel.class);
+        assertThat(served.get().config().getAllocator()).isInstanceOf(UnpooledByteBufAllocator.class);
+        assertThat(served.get().config().getAllocator().isDirectBufferPooled()).isFalse();
+        assertThat(served.get().config().getAllocator().buffer().isDirect()).isFalse();
+    }
+
+    @Test
+    public void shouldAllocatePooledDirectBuffers() {
+        //Given
+        start();
+
+        //When
+        get(HttpClient.create().port(server.port()));
+
+        //Then
+        assertThat(served.get().config().getAllocator()).isInstanceOf(PooledByteBufAllocator.class);
+        assertThat(served.get().config().getAllocator().buffer().isDirect()).isTrue();
+    }
+
+    private void start() {
+        NettyServerTuning tuning = new NettyServerTuning(properties, loops);
+        tuning.bindTo(registry);
+        server = tuning.apply(HttpServer.create().port(0))
+                .handle((request, response) -> {
+                    served.set(((Connection) request).channel());
+                    servingThread.set(Thread.currentThread().getName());
+                    return response.sendString(Mono.just("ok"));
+                })
+                .bindNow();
+    }
+
+    private static String get(final HttpClient client) {
+        return client.get().uri("/").responseContent().aggregate().asString().block(Duration.ofSeconds(5));
+    }
+}
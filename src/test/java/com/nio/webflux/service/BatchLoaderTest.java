@@ -0,0 +1,165 @@
+package com.nio.webflux.service;
+
+import org.junit.After;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchLoaderTest {
+
+    private final List<Set<String>> batches = new ArrayList<>();
+
+    private BatchLoader<String, String> loader;
+
+    @After
+    public void tearDown() {
+        loader.dispose();
+    }
+
+    @Test
+    public void shouldLoadKeysRequestedTogetherWithOneCall() {
+        //Given
+        loader = new BatchLoader<>(10, Duration.ofMillis(50), 4, this::upperCase);
+
+        //When && Then
+        StepVerifier.create(Mono.zip(loader.load("a"), loader.load("b"), loader.load("a")))
+                .expectNextMatches(loaded -> loaded.getT1().equals("A") && loaded.getT2().equals("B") && loaded.getT3().equals("A"))
+                .verifyComplete();
+        assertThat(batches).containsExactly(new LinkedHashSet<>(asList("a", "b")));
+    }
+
+    @Test
+    public void shouldSplitBatchesAtMaxSize() {
+        //Given
+        loader = new BatchLoader<>(2, Duration.ofSeconds(5), 4, this::upperCase);
+
+        //When && Then
+        StepVerifier.create(Mono.zip(loader.load("a"), loader.load("b"), loader.load("c"), loader.load("d")))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    public void shouldCompleteEmptyForMissingKeys() {
+        //Given
+        loader = new BatchLoader<>(10, Duration.ofMillis(1), 4, this::upperCase);
+
+        //When && Then
+        StepVerifier.create(loader.load("missing"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailEveryCallerOfFailedBatchAndKeepLoading() {
+        //Given
+        IllegalStateException failure = new IllegalStateException("boom");
+        loader = new BatchLoader<>(10, Duration.ofMillis(1), 4, keys -> keys.contains("bad") ? Mono.error(failure) : upperCase(keys));
+
+        //When && Then
+        StepVerifier.create(loader.load("bad"))
+                .verifyErrorMatches(failure::equals);
+        StepVerifier.create(loader.load("a"))
+                .expectNext("A")
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldBoundConcurrentLoads() {
+        //Given
+        MonoProcessor<Map<String, String>> first = MonoProcessor.create();
+        loader = new BatchLoader<>(1, Duration.ofMillis(1), 1,
+                keys -> keys.contains("a") ? first : upperCase(keys));
+        loader.load("a").subscribe();
+
+        //When
+        StepVerifier.create(loader.load("b"))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> first.onNext(emptyMap()))
+                //Then
+                .expectNext("B")
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldKeepBatchingWhileEveryLoadIsInFlight() {
+        //Given
+        MonoProcessor<Map<String, String>> first = MonoProcessor.create();
+        loader = new BatchLoader<>(10, Duration.ofMillis(2), 1,
+                keys -> keys.contains("a") ? first : upperCase(keys));
+        loader.load("a").subscribe();
+
+        //When
+        Mono<String> queued = loader.load("b").delaySubscription(Duration.ofMillis(20)).cache();
+        queued.subscribe();
+
+        //Then
+        StepVerifier.create(Mono.zip(queued, loader.load("c").delaySubscription(Duration.ofMillis(40))))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> first.onNext(emptyMap()))
+                .expectNextMatches(loaded -> loaded.getT1().equals("B") && loaded.getT2().equals("C"))
+                .verifyComplete();
+        StepVerifier.create(loader.load("d"))
+                .expectNext("D")
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldLeaveCancelledCallersOutOfTheBatch() {
+        //Given
+        loader = new BatchLoader<>(10, Duration.ofMillis(100), 4, this::upperCase);
+        loader.load("cancelled").subscribe().dispose();
+
+        //When && Then
+        StepVerifier.create(loader.load("a"))
+                .expectNext("A")
+                .verifyComplete();
+        assertThat(batches).containsExactly(singleton("a"));
+    }
+
+    @Test
+    public void shouldSkipQueuedBatchesWithEveryCallerCancelled() {
+        //Given
+        MonoProcessor<Map<String, String>> first = MonoProcessor.create();
+        loader = new BatchLoader<>(1, Duration.ofMillis(1), 1,
+                keys -> keys.contains("a") ? first : upperCase(keys));
+        loader.load("a").subscribe();
+        loader.load("cancelled").subscribe().dispose();
+
+        //When
+        first.onNext(emptyMap());
+
+        //Then
+        StepVerifier.create(loader.load("b"))
+                .expectNext("B")
+                .verifyComplete();
+        assertThat(batches).containsExactly(singleton("b"));
+    }
+
+    private Mono<Map<String, String>> upperCase(final Set<String> keys) {
+        return Mono.fromCallable(() -> {
+            batches.add(keys);
+            Map<String, String> loaded = new HashMap<>();
+            keys.stream()
+                    .filter(key -> !key.equals("missing"))
+                    .forEach(key -> loaded.put(key, key.toUpperCase()));
+            return loaded;
+        });
+    }
+}
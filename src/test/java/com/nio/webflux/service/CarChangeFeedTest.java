@@ -0,0 +1,71 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CarChangeFeedTest {
+
+    private final CarChangeFeed feed = new CarChangeFeed(2);
+
+    @Test
+    public void shouldMulticastChangesToEverySubscriber() throws Exception {
+        //Given
+        CarChange change = change("1111AAA");
+        CompletableFuture<CarChange> first = feed.subscribe().next().toFuture();
+        CompletableFuture<CarChange> second = feed.subscribe().next().toFuture();
+
+        //When
+        feed.publish(change);
+
+        //Then
+        assertThat(first.get(5, SECONDS)).isEqualTo(change);
+        assertThat(second.get(5, SECONDS)).isEqualTo(change);
+    }
+
+    @Test
+    public void shouldDropOldestChangesForSlowSubscriber() {
+        //Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        feed.bindTo(registry);
+
+        //When && Then
+        StepVerifier.create(feed.subscribe(), 0)
+                .then(() -> {
+                    for (int i = 1; i <= 5; i++) {
+                        feed.publish(change("id" + i));
+                    }
+                })
+                .thenRequest(3)
+                .expectNext(change("id1"), change("id4"), change("id5"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertThat(registry.get("cars.changes.dropped").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDiscardChangesWithoutSubscribers() {
+        //Given
+        feed.publish(change("1111AAA"));
+        CarChange change = change("2222BBB");
+
+        //When && Then
+        StepVerifier.create(feed.subscribe())
+                .then(() -> feed.publish(change))
+                .expectNext(change)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private static CarChange change(final String id) {
+        return new CarChange(CarChange.Type.CREATED, Car.builder().id(id).build());
+    }
+}
@@ -0,0 +1,109 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.config.CarsSeedProperties;
+import com.nio.webflux.model.Car;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+public class CarsSeederTest {
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private final CarsSeedProperties properties = new CarsSeedProperties();
+
+    @Before
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table car (id varchar(255) not null, model varchar(255), year integer, primary key (id))");
+    }
+
+    @After
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void shouldLoadEveryCarInParallelBatches() {
+        //Given
+        properties.setCount(10_001);
+        properties.setBatchSize(1_000);
+        properties.setThreads(4);
+
+        //When
+        int loaded = seeder().load();
+
+        //Then
+        assertThat(loaded).isEqualTo(10_001);
+        assertThat(jdbcTemplate.queryForObject("select count(distinct id) from car", Integer.class)).isEqualTo(10_001);
+        assertThat(jdbcTemplate.queryForObject("select min(id) || ' ' || max(id) from car", String.class))
+                .isEqualTo("CAR0000000 CAR0010000");
+        assertThat(jdbcTemplate.queryForObject("select min(year) from car", Integer.class)).isEqualTo(1990);
+        assertThat(jdbcTemplate.queryForObject("select max(year) from car", Integer.class)).isEqualTo(2019);
+        assertThat(jdbcTemplate.queryForObject("select count(distinct model) from car", Integer.class)).isEqualTo(50);
+    }
+
+    @Test
+    public void shouldNotSeedATableWithRows() {
+        //Given
+        jdbcTemplate.update("insert into car (id, model, year) values ('1234ABC', 'fiesta', 2019)");
+
+        //When && Then
+        assertThat(seeder().load()).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from car", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldGenerateTheSameCarsForTheSameSeed() {
+        //Given
+        CarsSeeder seeder = seeder();
+        CarsSeeder sameSeed = seeder();
+        properties.setRandomSeed(7);
+        CarsSeeder otherSeed = seeder();
+
+        //When && Then
+        assertThat(seeder.car(42)).isEqualTo(sameSeed.car(42));
+        assertThat(seeder.car(42).getId()).isEqualTo(otherSeed.car(42).getId());
+        assertThat(IntStream.range(0, 100).mapToObj(seeder::car))
+                .isNotEqualTo(IntStream.range(0, 100).mapToObj(otherSeed::car));
+    }
+
+    @Test
+    public void shouldSkewModelsWhenConfigured() {
+        //Given
+        properties.setModels(10);
+        properties.setModelSkew(1);
+        CarsSeeder seeder = seeder();
+
+        //When
+        Map<String, Long> models = IntStream.range(0, 100_000)
+                .mapToObj(seeder::car)
+                .map(Car::getModel)
+                .collect(groupingBy(Function.identity(), counting()));
+
+        //Then
+        assertThat(models).hasSize(10);
+        assertThat(models.get("model0")).isBetween(32_000L, 36_000L);
+        assertThat(models.get("model9")).isBetween(3_000L, 3_800L);
+    }
+
+    private CarsSeeder seeder() {
+        return new CarsSeeder(jdbcTemplate, new DataSourceTransactionManager(database), properties, 10);
+    }
+}
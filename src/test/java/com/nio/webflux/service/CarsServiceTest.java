@@ -1,22 +1,41 @@
 package com.nio.webflux.service;
 
+import com.nio.webflux.cache.LocalCache;
 import com.nio.webflux.exception.CarExistException;
 import com.nio.webflux.exception.CarNotExistException;
+import com.nio.webflux.model.BulkResult;
 import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarChange;
+import com.nio.webflux.model.LookupResult;
+import com.nio.webflux.model.CarsPage;
 import com.nio.webflux.repository.CarsRepository;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+import static com.nio.webflux.model.BulkResult.Status.*;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -28,11 +47,23 @@ public class CarsServiceTest {
     @Mock
     private CarsRepository carsRepository;
 
+    @Spy
+    private LocalCache<String, Car> carsByIdCache = new LocalCache<>("test", 100, Duration.ofMinutes(1));
+
+    @Spy
+    private LocalCache<CarsQuery, List<Car>> carsQueryCache = new LocalCache<>("test", 100, Duration.ofMinutes(1));
+
     @Mock
     private Car car1;
     @Mock
     private Car car2;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CarChangeFeed carChanges;
+
     @Captor
     private ArgumentCaptor<Car> carArgumentCaptor;
 
@@ -46,6 +77,25 @@ public class CarsServiceTest {
         verify(carsRepository).findAll();
     }
 
+    @Test
+    public void shouldTimeServiceMethodsThroughTheTimedAspect() {
+        //Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(carsService);
+        proxyFactory.addAspect(new TimedAspect(registry));
+        CarsService timed = proxyFactory.getProxy();
+        when(carsRepository.findAll()).thenReturn(asList(car1, car2));
+
+        //When
+        timed.findAll();
+        timed.findAll();
+
+        //Then
+        Timer timer = registry.get("cars.service").tag("class", CarsService.class.getName())
+                .tag("method", "findAll").tag("exception", "none").timer();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
     @Test
     public void shouldFindByModel() {
         //Given
@@ -145,19 +195,16 @@ public class CarsServiceTest {
         //Given
         String carId = "1234ABC";
         when(car1.getId()).thenReturn(carId);
-        when(carsRepository.findById(carId)).thenReturn(empty());
-        when(carsRepository.save(car1)).thenReturn(car1);
-
 
         //When
         Car created = carsService.create(car1);
 
         //Then
         assertThat(created).isEqualTo(car1);
-        InOrder inOrder = inOrder(carsRepository, car1);
-        inOrder.verify(car1).getId();
-        inOrder.verify(carsRepository).findById(carId);
-        inOrder.verify(carsRepository).save(car1);
+        verify(carsRepository).insert(car1);
+        verify(carsRepository, never()).findById(carId);
+        verify(carsRepository, never()).save(any(Car.class));
+        verify(carChanges).publish(new CarChange(CarChange.Type.CREATED, car1));
     }
 
     @Test
@@ -165,16 +212,15 @@ public class CarsServiceTest {
         //Given
         String carId = "alreadExistentId";
         when(car1.getId()).thenReturn(carId);
-        when(carsRepository.findById(carId)).thenReturn(of(car1));
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(carsRepository).insert(car1);
 
         //When && Then
         assertThatThrownBy(() -> carsService.create(car1))
                 .isInstanceOf(CarExistException.class)
                 .hasMessage("Car with id alreadExistentId already exists");
-        InOrder inOrder = Mockito.inOrder(carsRepository, car1);
-        inOrder.verify(car1).getId();
-        inOrder.verify(carsRepository).findById(carId);
-        inOrder.verify(carsRepository, never()).save(any(Car.class));
+        verify(carsRepository).insert(car1);
+        assertThat(carsService.findCachedById(carId)).isEmpty();
+        verifyZeroInteractions(carChanges);
     }
 
     @Test
@@ -182,12 +228,10 @@ public class CarsServiceTest {
         //Given
         String carId = "1234ABC";
         String newModel = "polo";
-        String currentModel = "focus";
         int currentYear = 2019;
-        Car currentCar = Car.builder().id(carId).model(currentModel).year(currentYear).build();
         Car carToUpdate = Car.builder().id(carId).model(newModel).year(2020).build();
-        when(carsRepository.findById(carId)).thenReturn(of(currentCar));
-        when(carsRepository.save(any(Car.class))).thenAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+        when(carsRepository.updateModel(carId, newModel))
+                .thenReturn(of(Car.builder().id(carId).model(newModel).year(currentYear).build()));
 
         //When
         Car updated = carsService.update(carToUpdate);
@@ -196,15 +240,25 @@ public class CarsServiceTest {
         assertThat(updated.getId()).isEqualTo(carId);
         assertThat(updated.getModel()).isEqualTo(newModel);
         assertThat(updated.getYear()).isEqualTo(currentYear);
+        verify(carsRepository).updateModel(carId, newModel);
+        verify(carsRepository, never()).findById(carId);
+        verify(carsRepository, never()).save(any(Car.class));
+        verify(carChanges).publish(new CarChange(CarChange.Type.UPDATED, updated));
+    }
 
-        InOrder inOrder = inOrder(carsRepository);
-        inOrder.verify(carsRepository).findById(carId);
-        inOrder.verify(carsRepository).save(carArgumentCaptor.capture());
+    @Test
+    public void shouldUpdateFromTheDatabaseRowRatherThanTheCache() {
+        //Given
+        String carId = "1234ABC";
+        carsByIdCache.put(carId, Car.builder().id(carId).model("stale").year(1990).build());
+        when(carsRepository.updateModel(carId, "polo")).thenReturn(of(Car.builder().id(carId).model("polo").year(2019).build()));
 
-        Car saved = carArgumentCaptor.getValue();
-        assertThat(saved.getId()).isEqualTo(carToUpdate.getId());
-        assertThat(saved.getModel()).isEqualTo(newModel);
-        assertThat(saved.getYear()).isEqualTo(currentYear);
+        //When
+        Car updated = carsService.update(Car.builder().id(carId).model("polo").build());
+
+        //Then
+        assertThat(updated).isEqualTo(Car.builder().id(carId).model("polo").year(2019).build());
+        assertThat(carsService.findCachedById(carId)).isEmpty();
     }
 
     @Test
@@ -212,13 +266,16 @@ public class CarsServiceTest {
         //Given
         String carId = "1234ABC";
         Car carToUpdate = Car.builder().id(carId).model("newModel").year(2000).build();
-        when(carsRepository.findById(carId)).thenReturn(empty());
+        carsByIdCache.put(carId, Car.builder().id(carId).model("focus").year(2000).build());
+        when(carsRepository.updateModel(carId, "newModel")).thenReturn(empty());
 
         //When && Then
         assertThatThrownBy(() -> carsService.update(carToUpdate))
                 .isInstanceOf(CarNotExistException.class)
                 .hasMessage("Car with id " + carId + " not exist");
-        verify(carsRepository).findById(carId);
+        verify(carsRepository).updateModel(carId, "newModel");
+        assertThat(carsService.findCachedById(carId)).isEmpty();
+        verifyZeroInteractions(carChanges);
     }
 
     @Test
@@ -232,6 +289,292 @@ public class CarsServiceTest {
 
         //Then
         verify(carsRepository).deleteById(id);
+        verify(carChanges).publish(new CarChange(CarChange.Type.DELETED, car));
+    }
+
+    @Test
+    public void shouldStreamAll() {
+        //Given
+        when(carsRepository.streamAll()).thenReturn(Stream.of(car1, car2));
+
+        //When && Then
+        assertThat(carsService.streamAll()).containsExactly(car1, car2);
+        verify(carsRepository).streamAll();
+    }
+
+    @Test
+    public void shouldFindFirstPageWithNextToken() {
+        //Given
+        Car car3 = Car.builder().id("3333CCC").build();
+        when(car2.getId()).thenReturn("2222BBB");
+        when(carsRepository.findByModelAndYearAndIdGreaterThanOrderById("model", 2000, "", PageRequest.of(0, 3)))
+                .thenReturn(asList(car1, car2, car3));
+
+        //When
+        CarsPage page = carsService.findPage("model", 2000, null, 2);
+
+        //Then
+        assertThat(page.getCars()).containsExactly(car1, car2);
+        assertThat(page.getNext()).isNotNull();
+        assertThat(PageTokens.afterId(page.getNext())).isEqualTo("2222BBB");
+    }
+
+    @Test
+    public void shouldFindNextPageAfterToken() {
+        //Given
+        when(car1.getId()).thenReturn("1111AAA");
+        String token = PageTokens.page(asList(car1, Car.builder().id("2222BBB").build()), 1).getNext();
+        when(carsRepository.findByIdGreaterThanOrderById("1111AAA", PageRequest.of(0, 3))).thenReturn(asList(car2));
+
+        //When
+        CarsPage page = carsService.findPage(null, null, token, 2);
+
+        //Then
+        assertThat(page.getCars()).containsExactly(car2);
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void shouldFindByIdFromCacheAfterFirstLoad() {
+        //Given
+        String id = "1234ABC";
+        when(carsRepository.findById(id)).thenReturn(of(car1));
+
+        //When
+        carsService.findById(id);
+
+        //Then
+        assertThat(carsService.findById(id)).contains(car1);
+        verify(carsRepository, times(1)).findById(id);
+        assertThat(carsByIdCache.hitCount()).isEqualTo(1);
+        assertThat(carsByIdCache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLoadAllByIdAndCacheFoundCars() {
+        //Given
+        Car car = Car.builder().id("1111AAA").model("focus").year(2000).build();
+        when(carsRepository.findAllById(asList("1111AAA", "2222BBB"))).thenReturn(asList(car));
+
+        //When
+        Map<String, Car> loaded = carsService.loadAllById(asList("1111AAA", "2222BBB"));
+
+        //Then
+        assertThat(loaded).containsOnly(entry("1111AAA", car));
+        assertThat(carsService.findCachedById("1111AAA")).contains(car);
+        assertThat(carsService.findCachedById("2222BBB")).isEmpty();
+    }
+
+    @Test
+    public void shouldFindAllByIdInRequestOrderWithOneLookupForMisses() {
+        //Given
+        Car cached = Car.builder().id("1111AAA").model("focus").year(2000).build();
+        Car stored = Car.builder().id("2222BBB").model("polo").year(2001).build();
+        carsByIdCache.put("1111AAA", cached);
+        when(carsRepository.findAllById(asList("2222BBB", "NOPE"))).thenReturn(asList(stored));
+
+        //When
+        List<LookupResult> results = carsService.findAllById(asList("2222BBB", "NOPE", "1111AAA", "2222BBB"));
+
+        //Then
+        assertThat(results).containsExactly(LookupResult.of("2222BBB", stored), LookupResult.of("NOPE", null),
+                LookupResult.of("1111AAA", cached), LookupResult.of("2222BBB", stored));
+        assertThat(results.get(1).getStatus()).isEqualTo(LookupResult.Status.NOT_FOUND);
+        verify(carsRepository).findAllById(asList("2222BBB", "NOPE"));
+    }
+
+    @Test
+    public void shouldNotCacheMissingCar() {
+        //Given
+        String id = "nonExistentId";
+        when(carsRepository.findById(id)).thenReturn(empty());
+
+        //When
+        carsService.findById(id);
+        carsService.findById(id);
+
+        //Then
+        verify(carsRepository, times(2)).findById(id);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldNotCacheCreatedCarOverAConcurrentUpdate() {
+        //Given
+        Car car = Car.builder().id("1234ABC").model("fiesta").year(2000).build();
+        Car updated = car.toBuilder().model("polo").build();
+        when(carsRepository.updateModel("1234ABC", "polo")).thenReturn(of(updated));
+        doAnswer(invocation -> carsService.update(updated)).when(carsRepository).insert(car);
+
+        //When
+        carsService.create(car);
+
+        //Then
+        assertThat(carsService.findCachedById("1234ABC")).isEmpty();
+    }
+
+    @Test
+    public void shouldInvalidateUpdatedCar() {
+        //Given
+        carsByIdCache.put("1234ABC", Car.builder().id("1234ABC").model("fiesta").year(2019).build());
+        when(carsRepository.updateModel("1234ABC", "polo"))
+                .thenReturn(of(Car.builder().id("1234ABC").model("polo").year(2019).build()));
+
+        //When
+        carsService.update(Car.builder().id("1234ABC").model("polo").build());
+
+        //Then
+        assertThat(carsService.findCachedById("1234ABC")).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCacheALoadThatRacedAnUpdate() {
+        //Given
+        Car before = Car.builder().id("1234ABC").model("fiesta").year(2019).build();
+        when(carsRepository.updateModel("1234ABC", "polo"))
+                .thenReturn(of(before.toBuilder().model("polo").build()));
+        when(carsRepository.findById("1234ABC")).thenAnswer(invocation -> {
+            carsService.update(Car.builder().id("1234ABC").model("polo").build());
+            return of(before);
+        });
+
+        //When
+        carsService.loadById("1234ABC");
+
+        //Then
+        assertThat(carsService.findCachedById("1234ABC")).isEmpty();
+    }
+
+    @Test
+    public void shouldInvalidateDeletedCar() {
+        //Given
+        Car car = Car.builder().id("1234ABC").model("fiesta").year(2000).build();
+        carsByIdCache.put("1234ABC", car);
+
+        //When
+        carsService.delete(car);
+
+        //Then
+        assertThat(carsService.findCachedById("1234ABC")).isEmpty();
+    }
+
+    @Test
+    public void shouldFindByModelAndYearFromCacheAfterFirstLoad() {
+        //Given
+        when(carsRepository.findByModelAndYear("x1", 2020)).thenReturn(asList(car1, car2));
+        carsService.findByModelAndYear("x1", 2020);
+
+        //When && Then
+        assertThat(carsService.findByModelAndYear("x1", 2020)).containsExactly(car1, car2);
+        verify(carsRepository, times(1)).findByModelAndYear("x1", 2020);
+    }
+
+    @Test
+    public void shouldInvalidateQueriesOfPreviousAndNewModelOnUpdate() {
+        //Given
+        Car currentCar = Car.builder().id("1234ABC").model("focus").year(2019).build();
+        when(carsRepository.findByModel(anyString())).thenReturn(emptyList());
+        when(carsRepository.findByModel("focus")).thenReturn(asList(currentCar));
+        when(carsRepository.findByYear(2000)).thenReturn(emptyList());
+        when(carsRepository.updateModel("1234ABC", "polo")).thenReturn(of(currentCar.toBuilder().model("polo").build()));
+        Stream.of("focus", "polo", "golf").forEach(carsService::findByModel);
+        carsService.findByYear(2000);
+
+        //When
+        carsService.update(Car.builder().id("1234ABC").model("polo").build());
+
+        //Then
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("focus", null))).isEmpty();
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("polo", null))).isEmpty();
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("golf", null))).isPresent();
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of(null, 2000))).isPresent();
+    }
+
+    @Test
+    public void shouldInvalidateMatchingQueriesOnCreate() {
+        //Given
+        Car car = Car.builder().id("1234ABC").model("fiesta").year(2000).build();
+        when(carsRepository.findByModelAndYear("fiesta", 2000)).thenReturn(emptyList());
+        when(carsRepository.findByModelAndYear("fiesta", 2001)).thenReturn(emptyList());
+        carsService.findByModelAndYear("fiesta", 2000);
+        carsService.findByModelAndYear("fiesta", 2001);
+
+        //When
+        carsService.create(car);
+
+        //Then
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("fiesta", 2000))).isEmpty();
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("fiesta", 2001))).isPresent();
+    }
+
+    @Test
+    public void shouldCreateAllWithOneLookupAndReportPerCar() {
+        //Given
+        inTransaction();
+        Car existing = Car.builder().id("1111AAA").model("focus").year(2000).build();
+        Car newCar = Car.builder().id("2222BBB").model("polo").year(2001).build();
+        Car duplicate = Car.builder().id("2222BBB").model("polo").year(2002).build();
+        Car withoutId = Car.builder().model("golf").build();
+        when(carsRepository.findAllById(asList("1111AAA", "2222BBB"))).thenReturn(asList(existing));
+
+        //When
+        List<BulkResult> results = carsService.createAll(asList(existing, newCar, duplicate, withoutId), false);
+
+        //Then
+        assertThat(results).extracting("id", "status").containsExactly(
+                tuple("1111AAA", EXISTS),
+                tuple("2222BBB", CREATED),
+                tuple("2222BBB", EXISTS),
+                tuple(null, INVALID));
+        verify(carsRepository).insertAll(asList(newCar));
+        verify(carsRepository, never()).save(any(Car.class));
+        assertThat(carsService.findCachedById("2222BBB")).isEmpty();
+    }
+
+    @Test
+    public void shouldUpsertExistingCars() {
+        //Given
+        inTransaction();
+        Car existing = Car.builder().id("1111AAA").model("focus").year(2000).build();
+        when(carsRepository.findByModel("focus")).thenReturn(asList(existing));
+        when(carsRepository.findAllById(asList("1111AAA"))).thenReturn(asList(existing));
+        carsService.findByModel("focus");
+        carsByIdCache.put("1111AAA", existing.toBuilder().build());
+
+        //When
+        List<BulkResult> results = carsService.createAll(asList(Car.builder().id("1111AAA").model("polo").year(2005).build()), true);
+
+        //Then
+        assertThat(results).extracting("status").containsExactly(UPDATED);
+        assertThat(existing.getModel()).isEqualTo("polo");
+        assertThat(existing.getYear()).isEqualTo(2005);
+        verify(carsRepository).insertAll(emptyList());
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("focus", null))).isEmpty();
+        assertThat(carsService.findCachedById("1111AAA")).isEmpty();
+        verify(carChanges).publish(new CarChange(CarChange.Type.UPDATED, existing));
+    }
+
+    private void inTransaction() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    public void shouldInvalidateOnlyQueriesOfTheUpdatedRowWithoutCachedCar() {
+        //Given
+        Car previous = Car.builder().id("1234ABC").model("focus").year(2019).build();
+        when(carsRepository.findByModelAndYear(anyString(), anyInt())).thenReturn(emptyList());
+        when(carsRepository.findByModelAndYear("focus", 2019)).thenReturn(asList(previous));
+        when(carsRepository.updateModel("1234ABC", "polo")).thenReturn(of(previous.toBuilder().model("polo").build()));
+        carsService.findByModelAndYear("focus", 2019);
+        carsService.findByModelAndYear("polo", 2019);
+        carsService.findByModelAndYear("polo", 2000);
+
+        //When
+        carsService.update(Car.builder().id("1234ABC").model("polo").build());
+
+        //Then
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("focus", 2019))).isEmpty();
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("polo", 2019))).isEmpty();
+        assertThat(carsQueryCache.getIfPresent(CarsQuery.of("polo", 2000))).isPresent();
+    }
+}
@@ -0,0 +1,204 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.config.CarsSchedulerConfiguration;
+import com.nio.webflux.config.CarsSchedulerProperties;
+import com.nio.webflux.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatabaseWaitBudgetTest {
+
+    private final DatabaseWaitBudget budget = new DatabaseWaitBudget(Duration.ofMillis(100), 1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private Scheduler scheduler;
+
+    @Before
+    public void setUp() {
+        budget.bindTo(registry);
+        scheduler = Schedulers.newSingle("cars-db-test");
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    public void shouldRunTheCallOnTheSchedulerAndRecordTheWait() {
+        //When && Then
+        StepVerifier.create(budget.call(() -> Thread.currentThread().getName(), scheduler))
+                .assertNext(thread -> assertThat(thread).startsWith("cars-db-test"))
+                .verifyComplete();
+        assertThat(registry.get("cars.db.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFailCallsStillQueuedAtTheDeadline() {
+        //Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+        budget.call(() -> release.await(5, SECONDS), scheduler).subscribe();
+
+        //When && Then
+        StepVerifier.create(budget.call(() -> ran.getAndSet(true), scheduler))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(DatabaseBusyException.class)
+                        .hasMessageStartingWith("Waited"))
+                .verify(Duration.ofSeconds(1));
+        assertThat(release.getCount()).isEqualTo(1);
+        assertThat(registry.get("cars.db.rejected").tag("reason", "max-wait").counter().count()).isEqualTo(1);
+        assertThat(registry.get("cars.db.wait").timer().count()).isEqualTo(2);
+        release.countDown();
+        StepVerifier.create(budget.call(() -> "next", scheduler))
+                .expectNext("next")
+                .verifyComplete();
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    public void shouldTakeCallsOutOfTheQueueAtTheDeadline() {
+        //Given
+        CarsSchedulerProperties properties = new CarsSchedulerProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        CarsSchedulerConfiguration configuration = new CarsSchedulerConfiguration();
+        ReflectionTestUtils.setField(configuration, "properties", properties);
+        Scheduler bounded = configuration.carsScheduler();
+        CountDownLatch release = new CountDownLatch(1);
+        budget.call(() -> release.await(5, SECONDS), bounded).subscribe();
+        StepVerifier.create(budget.call(() -> "timed out", bounded))
+                .expectError(DatabaseBusyException.class)
+                .verify(Duration.ofSeconds(1));
+
+        //When && Then
+        StepVerifier.create(budget.call(() -> "queued", bounded)
+                .doOnSubscribe(subscription -> Schedulers.parallel().schedule(release::countDown, 50, MILLISECONDS)))
+                .expectNext("queued")
+                .verifyComplete();
+        assertThat(registry.get("cars.db.rejected").tag("reason", "queue-full").counter().count()).isZero();
+        bounded.dispose();
+    }
+
+    @Test
+    public void shouldNotCutCallsThatStartedWithinTheBudget() {
+        //When && Then
+        StepVerifier.create(budget.call(() -> {
+            Thread.sleep(300);
+            return "slow";
+        }, scheduler))
+                .expectNext("slow")
+                .verifyComplete();
+        assertThat(registry.get("cars.db.rejected").tag("reason", "max-wait").counter().count()).isZero();
+    }
+
+    @Test
+    public void shouldFailCallsRejectedByAFullQueue() {
+        //Given
+        Scheduler full = Schedulers.fromExecutor(command -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        //When && Then
+        StepVerifier.create(budget.call(() -> "rejected", full))
+                .expectError(DatabaseBusyException.class)
+                .verify();
+        assertThat(registry.get("cars.db.rejected").tag("reason", "queue-full").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFailCallsTimedOutByTheConnectionPool() {
+        //Given
+        CannotCreateTransactionException timeout = new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("cars - Connection is not available, request timed out after 500ms."));
+
+        //When && Then
+        StepVerifier.create(budget.call(() -> {
+            throw timeout;
+        }, scheduler))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(DatabaseBusyException.class)
+                        .hasMessageContaining("request timed out")
+                        .hasCause(timeout))
+                .verify();
+        assertThat(registry.get("cars.db.rejected").tag("reason", "connection-timeout").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldStreamOnTheScheduler() {
+        //When && Then
+        StepVerifier.create(budget.stream(() -> Stream.of(Thread.currentThread().getName()), scheduler))
+                .assertNext(thread -> assertThat(thread).startsWith("cars-db-test"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailStreamsOverTheLimitUntilOneCloses() {
+        //Given
+        StepVerifier.create(budget.stream(() -> Stream.of(1, 2), scheduler), 1)
+                .expectNext(1)
+
+                //When && Then
+                .then(() -> StepVerifier.create(budget.stream(() -> Stream.of(3), scheduler))
+                        .expectErrorSatisfies(error -> assertThat(error)
+                                .isInstanceOf(DatabaseBusyException.class)
+                                .hasMessage("All 1 database streams are open"))
+                        .verify())
+                .thenCancel()
+                .verify();
+        assertThat(registry.get("cars.db.rejected").tag("reason", "streams-full").counter().count()).isEqualTo(1);
+        StepVerifier.create(budget.stream(() -> Stream.of(3), scheduler))
+                .expectNext(3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailStreamsStillQueuedAtTheDeadline() {
+        //Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean opened = new AtomicBoolean();
+        budget.call(() -> release.await(5, SECONDS), scheduler).subscribe();
+
+        //When && Then
+        StepVerifier.create(budget.stream(() -> {
+            opened.set(true);
+            return Stream.of(1);
+        }, scheduler))
+                .expectError(DatabaseBusyException.class)
+                .verify(Duration.ofSeconds(1));
+        release.countDown();
+        StepVerifier.create(budget.stream(() -> Stream.of(2), scheduler))
+                .expectNext(2)
+                .verifyComplete();
+        assertThat(opened).isFalse();
+    }
+
+    @Test
+    public void shouldPassOtherErrorsThrough() {
+        //When && Then
+        StepVerifier.create(budget.call(() -> {
+            throw new IllegalStateException("boom");
+        }, scheduler))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,349 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.exception.CarExistException;
+import com.nio.webflux.exception.CarNotExistException;
+import com.nio.webflux.exception.DatabaseBusyException;
+import com.nio.webflux.model.BulkResult;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.LookupResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static com.nio.webflux.model.BulkResult.Status.CREATED;
+import static com.nio.webflux.model.BulkResult.Status.EXISTS;
+import static com.nio.webflux.model.BulkResult.Status.FAILED;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OffloadedCarsServiceTest {
+
+    @InjectMocks
+    private OffloadedCarsService offloadedCarsService;
+
+    @Mock
+    private CarsService carsService;
+
+    @Mock
+    private Car car1;
+
+    @Mock
+    private Car car2;
+
+    private Scheduler carsScheduler;
+
+    @Before
+    public void setUp() {
+        carsScheduler = Schedulers.newSingle("cars-db-test");
+        ReflectionTestUtils.setField(offloadedCarsService, "carsScheduler", carsScheduler);
+        ReflectionTestUtils.setField(offloadedCarsService, "carsStreamScheduler", carsScheduler);
+        ReflectionTestUtils.setField(offloadedCarsService, "databaseWaitBudget", new DatabaseWaitBudget(Duration.ofSeconds(5), 1));
+    }
+
+    @After
+    public void tearDown() {
+        carsScheduler.dispose();
+    }
+
+    @Test
+    public void shouldFindAllOnCarsScheduler() {
+        //Given
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(carsService.findAll()).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return asList(car1, car2);
+        });
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findAll())
+                .expectNext(car1)
+                .expectNext(car2)
+                .verifyComplete();
+        assertThat(thread.get()).startsWith("cars-db-test");
+    }
+
+    @Test
+    public void shouldNotCallCarsServiceUntilSubscribed() {
+        //When
+        offloadedCarsService.findByModel("fiesta");
+
+        //Then
+        verifyZeroInteractions(carsService);
+    }
+
+    @Test
+    public void shouldFindByModel() {
+        //Given
+        when(carsService.findByModel("fiesta")).thenReturn(asList(car1, car2));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findByModel("fiesta"))
+                .expectNext(car1, car2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindByYear() {
+        //Given
+        when(carsService.findByYear(2000)).thenReturn(asList(car1, car2));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findByYear(2000))
+                .expectNext(car1, car2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindByModelAndYear() {
+        //Given
+        when(carsService.findByModelAndYear("fiesta", 2000)).thenReturn(asList(car1, car2));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findByModelAndYear("fiesta", 2000))
+                .expectNext(car1, car2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindById() {
+        //Given
+        when(carsService.findCachedById("1234ABC")).thenReturn(empty());
+        when(carsService.loadById("1234ABC")).thenReturn(of(car1));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findById("1234ABC"))
+                .expectNext(car1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFindByIdFromCacheWithoutLoading() {
+        //Given
+        when(carsService.findCachedById("1234ABC")).thenReturn(of(car1));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findById("1234ABC"))
+                .expectNext(car1)
+                .verifyComplete();
+        verify(carsService, never()).loadById("1234ABC");
+    }
+
+    @Test
+    public void shouldShareOneLoadBetweenConcurrentFindById() throws Exception {
+        //Given
+        CountDownLatch loading = new CountDownLatch(1);
+        when(carsService.findCachedById("1234ABC")).thenReturn(empty());
+        when(carsService.loadById("1234ABC")).thenAnswer(invocation -> {
+            loading.await(5, SECONDS);
+            return of(car1);
+        });
+
+        //When
+        CompletableFuture<Car> first = offloadedCarsService.findById("1234ABC").toFuture();
+        CompletableFuture<Car> second = offloadedCarsService.findById("1234ABC").toFuture();
+        loading.countDown();
+
+        //Then
+        assertThat(first.get(5, SECONDS)).isEqualTo(car1);
+        assertThat(second.get(5, SECONDS)).isEqualTo(car1);
+        verify(carsService, times(1)).loadById("1234ABC");
+    }
+
+    @Test
+    public void shouldFindByIdThroughBatchLoader() {
+        //Given
+        BatchLoader<String, Car> carsByIdLoader = new BatchLoader<>(10, Duration.ofMillis(1), 4,
+                ids -> Mono.fromCallable(() -> carsService.loadAllById(ids)));
+        ReflectionTestUtils.setField(offloadedCarsService, "carsByIdLoader", carsByIdLoader);
+        when(carsService.findCachedById(anyString())).thenReturn(empty());
+        when(carsService.loadAllById(anySet())).thenReturn(singletonMap("1234ABC", car1));
+
+        //When && Then
+        StepVerifier.create(Mono.zip(offloadedCarsService.findById("1234ABC"), offloadedCarsService.findById("5678DEF").hasElement()))
+                .expectNextMatches(found -> found.getT1() == car1 && !found.getT2())
+                .verifyComplete();
+        verify(carsService, never()).loadById(anyString());
+        carsByIdLoader.dispose();
+    }
+
+    @Test
+    public void shouldFindAllByIdInChunks() {
+        //Given
+        ReflectionTestUtils.setField(offloadedCarsService, "bulkChunkSize", 2);
+        LookupResult first = LookupResult.of("1111AAA", car1);
+        LookupResult second = LookupResult.of("2222BBB", null);
+        LookupResult third = LookupResult.of("3333CCC", car2);
+        when(carsService.findAllById(asList("1111AAA", "2222BBB"))).thenReturn(asList(first, second));
+        when(carsService.findAllById(asList("3333CCC"))).thenReturn(asList(third));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findAllById(Flux.just("1111AAA", "2222BBB", "3333CCC")))
+                .expectNext(first, second, third)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldNotFindByIdWhenIdNotExist() {
+        //Given
+        when(carsService.findCachedById("nonExistentId")).thenReturn(empty());
+        when(carsService.loadById("nonExistentId")).thenReturn(empty());
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findById("nonExistentId"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldCreate() {
+        //Given
+        when(carsService.create(car1)).thenReturn(car1);
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.create(car1))
+                .expectNext(car1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldCreateSignalErrorWhenAlreadyExist() {
+        //Given
+        when(carsService.create(car1)).thenThrow(new CarExistException("Car already exist"));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.create(car1))
+                .expectError(CarExistException.class)
+                .verify();
+    }
+
+    @Test
+    public void shouldUpdate() {
+        //Given
+        when(carsService.update(car1)).thenReturn(car1);
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.update(car1))
+                .expectNext(car1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldUpdateSignalErrorWhenCarNotExist() {
+        //Given
+        when(carsService.update(car1)).thenThrow(new CarNotExistException("Car doesn't exist"));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.update(car1))
+                .expectError(CarNotExistException.class)
+                .verify();
+    }
+
+    @Test
+    public void shouldDelete() {
+        //When && Then
+        StepVerifier.create(offloadedCarsService.delete(car1))
+                .verifyComplete();
+        verify(carsService).delete(car1);
+    }
+
+    @Test
+    public void shouldStreamAllOnDemandAndCloseOnCancel() {
+        //Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(carsService.streamAll()).thenReturn(Stream.of(car1, car2).onClose(() -> closed.set(true)));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.streamAll(), 1)
+                .expectNext(car1)
+                .thenCancel()
+                .verify();
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    public void shouldAnswerBusyWhileAllStreamsAreOpen() {
+        //Given
+        when(carsService.streamAll()).thenAnswer(invocation -> Stream.of(car1, car2));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.streamAll(), 1)
+                .expectNext(car1)
+                .then(() -> StepVerifier.create(offloadedCarsService.streamAll())
+                        .expectError(DatabaseBusyException.class)
+                        .verify())
+                .thenCancel()
+                .verify();
+        verify(carsService, times(1)).streamAll();
+    }
+
+    @Test
+    public void shouldCreateAllInChunks() {
+        //Given
+        ReflectionTestUtils.setField(offloadedCarsService, "bulkChunkSize", 2);
+        Car car3 = Car.builder().id("3").build();
+        BulkResult result1 = new BulkResult("1", CREATED);
+        BulkResult result2 = new BulkResult("2", EXISTS);
+        BulkResult result3 = new BulkResult("3", CREATED);
+        when(carsService.createAll(asList(car1, car2), false)).thenReturn(asList(result1, result2));
+        when(carsService.createAll(asList(car3), false)).thenReturn(asList(result3));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.createAll(Flux.just(car1, car2, car3), false))
+                .expectNext(result1, result2, result3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldReportAFailedChunkAndGoOnWithTheNext() {
+        //Given
+        ReflectionTestUtils.setField(offloadedCarsService, "bulkChunkSize", 2);
+        Car car3 = Car.builder().id("3").build();
+        BulkResult result3 = new BulkResult("3", CREATED);
+        when(carsService.createAll(asList(car1, car2), false)).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(carsService.createAll(asList(car3), false)).thenReturn(asList(result3));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.createAll(Flux.just(car1, car2, car3), false))
+                .expectNext(new BulkResult(car1.getId(), FAILED, "duplicate"), new BulkResult(car2.getId(), FAILED, "duplicate"))
+                .expectNext(result3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldAnswerBusyWhenTheSchedulerRejectsTheCall() {
+        //Given
+        ReflectionTestUtils.setField(offloadedCarsService, "carsScheduler", Schedulers.fromExecutor(command -> {
+            throw new RejectedExecutionException("queue full");
+        }));
+
+        //When && Then
+        StepVerifier.create(offloadedCarsService.findAll())
+                .expectError(DatabaseBusyException.class)
+                .verify();
+        verifyZeroInteractions(carsService);
+    }
+}
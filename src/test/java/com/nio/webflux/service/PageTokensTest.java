@@ -0,0 +1,51 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.exception.InvalidPageTokenException;
+import com.nio.webflux.model.Car;
+import com.nio.webflux.model.CarsPage;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PageTokensTest {
+
+    private final Car car1 = Car.builder().id("1111ABC").build();
+    private final Car car2 = Car.builder().id("2222ABC").build();
+    private final Car car3 = Car.builder().id("3333ABC").build();
+
+    @Test
+    public void shouldStartFromFirstIdWhenNoToken() {
+        assertThat(PageTokens.afterId(null)).isEqualTo(PageTokens.FIRST);
+        assertThat(PageTokens.afterId("")).isEqualTo(PageTokens.FIRST);
+    }
+
+    @Test
+    public void shouldHaveNextTokenWhenMoreRowsThanSize() {
+        //When
+        CarsPage page = PageTokens.page(asList(car1, car2, car3), 2);
+
+        //Then
+        assertThat(page.getCars()).containsExactly(car1, car2);
+        assertThat(page.getNext()).isNotEqualTo("2222ABC");
+        assertThat(PageTokens.afterId(page.getNext())).isEqualTo("2222ABC");
+    }
+
+    @Test
+    public void shouldNotHaveNextTokenOnLastPage() {
+        //When
+        CarsPage page = PageTokens.page(asList(car1, car2), 2);
+
+        //Then
+        assertThat(page.getCars()).containsExactly(car1, car2);
+        assertThat(page.getNext()).isNull();
+    }
+
+    @Test
+    public void shouldRejectInvalidToken() {
+        assertThatThrownBy(() -> PageTokens.afterId("not base64!"))
+                .isInstanceOf(InvalidPageTokenException.class)
+                .hasMessage("Invalid page token not base64!");
+    }
+}
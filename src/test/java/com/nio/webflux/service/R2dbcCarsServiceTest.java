@@ -0,0 +1,139 @@
+package com.nio.webflux.service;
+
+import com.nio.webflux.exception.CarExistException;
+import com.nio.webflux.exception.CarNotExistException;
+import com.nio.webflux.model.BulkResult;
+import com.nio.webflux.model.Car;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import static com.nio.webflux.model.BulkResult.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The R2DBC engine over the real r2dbc-h2 driver and the embedded database the JPA path creates.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "cars.bulk.chunk-size=2")
+@ActiveProfiles("r2dbc")
+public class R2dbcCarsServiceTest {
+
+    @Autowired
+    private ReactiveCarsService carsService;
+
+    @After
+    public void tearDown() {
+        Flux.just("R2DBC01", "R2DBC02", "R2DBC03")
+                .concatMap(id -> carsService.delete(Car.builder().id(id).build()))
+                .blockLast();
+    }
+
+    @Test
+    public void shouldUseTheR2dbcEngine() {
+        //When && Then
+        assertThat(carsService).isInstanceOf(R2dbcCarsService.class);
+    }
+
+    @Test
+    public void shouldCreateAndFindById() {
+        //Given
+        Car car = Car.builder().id("R2DBC01").model("fiesta").year(2019).build();
+
+        //When && Then
+        StepVerifier.create(carsService.create(car)).expectNext(car).verifyComplete();
+        StepVerifier.create(carsService.findById("R2DBC01")).expectNext(car).verifyComplete();
+    }
+
+    @Test
+    public void shouldServeFromNonBlockingThreads() {
+        //Given
+        Car car = Car.builder().id("R2DBC01").model("fiesta").year(2019).build();
+
+        //When && Then
+        StepVerifier.create(carsService.create(car)
+                .then(carsService.findById("R2DBC01"))
+                .subscribeOn(Schedulers.parallel()))
+                .expectNext(car)
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldRejectDuplicateWithCarExistException() {
+        //Given
+        Car car = Car.builder().id("R2DBC01").model("fiesta").year(2019).build();
+        carsService.create(car).block();
+
+        //When && Then
+        StepVerifier.create(carsService.create(car.toBuilder().model("focus").build()))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(CarExistException.class)
+                        .hasMessage("Car with id R2DBC01 already exists"))
+                .verify();
+    }
+
+    @Test
+    public void shouldUpdateModelAndReturnTheCompleteCar() {
+        //Given
+        carsService.create(Car.builder().id("R2DBC01").model("fiesta").year(2019).build()).block();
+
+        //When && Then
+        StepVerifier.create(carsService.update(Car.builder().id("R2DBC01").model("focus").build()))
+                .expectNext(Car.builder().id("R2DBC01").model("focus").year(2019).build())
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldFailToUpdateMissingCar() {
+        //When && Then
+        StepVerifier.create(carsService.update(Car.builder().id("R2DBC02").model("focus").build()))
+                .expectError(CarNotExistException.class)
+                .verify();
+    }
+
+    @Test
+    public void shouldCreateAllLikeTheJpaEngine() {
+        //Given
+        carsService.create(Car.builder().id("R2DBC01").model("fiesta").year(2019).build()).block();
+        Flux<Car> cars = Flux.just(
+                Car.builder().id("R2DBC01").model("focus").year(2020).build(),
+                Car.builder().id("R2DBC02").model("polo").year(2001).build(),
+                Car.builder().id("R2DBC02").model("golf").year(2002).build(),
+                Car.builder().model("golf").build(),
+                Car.builder().id("R2DBC03").model("ibiza").year(2003).build());
+
+        //When && Then
+        StepVerifier.create(carsService.createAll(cars, false).map(result -> tuple(result.getId(), result.getStatus())))
+                .expectNext(tuple("R2DBC01", EXISTS), tuple("R2DBC02", CREATED), tuple("R2DBC02", EXISTS),
+                        tuple(null, INVALID), tuple("R2DBC03", CREATED))
+                .verifyComplete();
+        StepVerifier.create(carsService.findById("R2DBC02"))
+                .expectNext(Car.builder().id("R2DBC02").model("polo").year(2001).build())
+                .verifyComplete();
+    }
+
+    @Test
+    public void shouldUpsertExistingCars() {
+        //Given
+        carsService.create(Car.builder().id("R2DBC01").model("fiesta").year(2019).build()).block();
+
+        //When
+        StepVerifier.create(carsService.createAll(Flux.just(Car.builder().id("R2DBC01").model("focus").year(2020).build()), true)
+                .map(BulkResult::getStatus))
+                .expectNext(UPDATED)
+                .verifyComplete();
+
+        //Then
+        StepVerifier.create(carsService.findById("R2DBC01"))
+                .expectNext(Car.builder().id("R2DBC01").model("focus").year(2020).build())
+                .verifyComplete();
+    }
+}
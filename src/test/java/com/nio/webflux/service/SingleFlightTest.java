@@ -0,0 +1,79 @@
+package com.nio.webflux.service;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    public void shouldShareInFlightLookupForSameKey() {
+        //Given
+        MonoProcessor<String> result = MonoProcessor.create();
+        Mono<String> first = singleFlight.get("a", key -> lookup(result));
+        Mono<String> second = singleFlight.get("a", key -> lookup(result));
+
+        //When && Then
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.onNext("A"))
+                .expectNextMatches(both -> both.getT1().equals("A") && both.getT2().equals("A"))
+                .verifyComplete();
+        assertThat(lookups).hasValue(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void shouldLookUpAgainOnceFinished() {
+        //Given
+        StepVerifier.create(singleFlight.get("a", key -> lookup(Mono.just("A"))))
+                .expectNext("A")
+                .verifyComplete();
+
+        //When && Then
+        StepVerifier.create(singleFlight.get("a", key -> lookup(Mono.just("B"))))
+                .expectNext("B")
+                .verifyComplete();
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    public void shouldNotShareLookupsOfDifferentKeys() {
+        //Given
+        MonoProcessor<String> pending = MonoProcessor.create();
+        singleFlight.get("a", key -> lookup(pending)).subscribe();
+
+        //When && Then
+        StepVerifier.create(singleFlight.get("b", key -> lookup(Mono.just("B"))))
+                .expectNext("B")
+                .verifyComplete();
+        assertThat(lookups).hasValue(2);
+        assertThat(singleFlight.inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldShareErrorsAndForgetFailedLookup() {
+        //Given
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        //When && Then
+        StepVerifier.create(singleFlight.get("a", key -> lookup(Mono.error(failure))))
+                .verifyErrorMatches(failure::equals);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    private Mono<String> lookup(final Mono<String> result) {
+        return Mono.defer(() -> {
+            lookups.incrementAndGet();
+            return result;
+        });
+    }
+}